@@ -0,0 +1,58 @@
+package benchmarks;
+
+import io.restassured.response.Response;
+import lib.ApiClient;
+import lib.ApiCoreRequests;
+import lib.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// each fork is a fresh JVM, so the properties below are set before ApiClient reads them; api.baseUrl=stub has
+// ApiClient start the loopback UserServiceStub
+@Fork(value = 1, jvmArgsAppend = {"-Dallure.attachments=off", "-Dapi.baseUrl=stub"})
+public class ApiCoreRequestsBenchmark {
+    private final ApiCoreRequests apiCoreRequests = new ApiCoreRequests();
+    private Session session;
+    private Map<String, String> authData;
+
+    @Setup
+    public void setUp() {
+        authData = new HashMap<>();
+        authData.put("email", "vinkotov@example.com");
+        authData.put("password", "1234");
+        session = apiCoreRequests.getSession("vinkotov@example.com", "1234");
+    }
+
+    @TearDown
+    public void tearDown() {
+        ApiClient.shutdown();
+    }
+
+    @Benchmark
+    public Response getUserWithTokenAndCookie() {
+        return apiCoreRequests.makeGetRequest("/user/2", session.getToken(), session.getCookie());
+    }
+
+    @Benchmark
+    public Response login() {
+        return apiCoreRequests.makePostRequest("/user/login", authData);
+    }
+}
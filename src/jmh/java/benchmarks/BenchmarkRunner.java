@@ -0,0 +1,26 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// No build compiles src/jmh, it is compiled against the compiled tests by hand. <jmh> is jmh-core 1.37,
+// jmh-generator-annprocess 1.37, jopt-simple 5.0.4 and commons-math3 3.6.1; the annotation processor has to run,
+// it writes the META-INF/BenchmarkList the runner reads:
+//   javac -cp target/test-classes:<test classpath>:<jmh> -processorpath <jmh> -d target/jmh-classes \
+//       src/jmh/java/benchmarks/*.java
+//   java -cp target/jmh-classes:target/test-classes:<test classpath>:<jmh> benchmarks.BenchmarkRunner [regexp]
+public class BenchmarkRunner {
+
+    // runs every benchmark of this package with the gc profiler, so allocation rate (gc.alloc.rate.norm)
+    // is reported next to throughput; pass a regexp to run a subset
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "benchmarks\\..*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import lib.DataGenerate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataGenerateBenchmark {
+
+    @Param({"1", "250"})
+    int size;
+
+    private Map<String, String> overrides;
+
+    @Setup
+    public void setUp() {
+        overrides = new HashMap<>();
+        overrides.put("email", "vinkotovexample.com");
+        overrides.put("firstName", "a");
+    }
+
+    @Benchmark
+    public Map<String, String> registrationData() {
+        return DataGenerate.getRegistrationData();
+    }
+
+    @Benchmark
+    public Map<String, String> registrationDataWithOverrides() {
+        return DataGenerate.getRegistrationData(overrides);
+    }
+
+    @Benchmark
+    public String randomStringWithGivenSize() {
+        return DataGenerate.getRandomStringWithGivenSize(size);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public int boundaryRegistrationData() {
+        return DataGenerate.boundaryRegistrationData(2, 250, "firstName", "lastName")
+                .limit(1000)
+                .mapToInt(Map::size)
+                .sum();
+    }
+}
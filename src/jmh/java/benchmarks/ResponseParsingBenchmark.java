@@ -0,0 +1,86 @@
+package benchmarks;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import lib.Assertions;
+import lib.BaseTestCase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark extends BaseTestCase {
+    private static final String USER_BODY = "{\"id\":\"2\",\"username\":\"Vitaliy\",\"email\":\"vinkotov@example.com\","
+            + "\"firstName\":\"Vitalii\",\"lastName\":\"Kotov\"}";
+    private static final String[] USER_FIELDS = {"username", "firstName", "lastName", "email"};
+
+    private Response parsedResponse;
+    private Response loginResponse;
+
+    @Setup
+    public void setUp() {
+        parsedResponse = userResponse();
+        Assertions.assertJsonHasField(parsedResponse, "id");
+        loginResponse = new ResponseBuilder()
+                .setStatusCode(200)
+                .setContentType(ContentType.JSON)
+                .setHeader("x-csrf-token", "7d2d3e4f5a6b7c8d9e0f1a2b3c4d5e6f")
+                .setHeader("Set-Cookie", "auth_sid=0a1b2c3d4e5f6a7b8c9d0e1f2a3b4c5d; path=/")
+                .setBody("{\"user_id\":2}")
+                .build();
+    }
+
+    // includes building the Response, so compare against newResponse() to get the parsing share
+    @Benchmark
+    public Response newResponse() {
+        return userResponse();
+    }
+
+    @Benchmark
+    public Response assertJsonFieldsOnNewResponse() {
+        Response response = userResponse();
+        Assertions.assertJsonHasFields(response, USER_FIELDS);
+        Assertions.assertJsonByName(response, "id", 2);
+        return response;
+    }
+
+    @Benchmark
+    public Response assertJsonFieldsOnParsedResponse() {
+        Assertions.assertJsonHasFields(parsedResponse, USER_FIELDS);
+        Assertions.assertJsonByName(parsedResponse, "id", 2);
+        return parsedResponse;
+    }
+
+    @Benchmark
+    public String headerExtraction() {
+        return getHeader(loginResponse, "x-csrf-token");
+    }
+
+    @Benchmark
+    public String cookieExtraction() {
+        return getCookie(loginResponse, "auth_sid");
+    }
+
+    private static Response userResponse() {
+        return new ResponseBuilder()
+                .setStatusCode(200)
+                .setContentType(ContentType.JSON)
+                .setBody(USER_BODY)
+                .build();
+    }
+}
@@ -0,0 +1,274 @@
+package lib;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.DefaultAttachmentContent;
+import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
+import io.qameta.allure.attachment.http.HttpRequestAttachment;
+import io.qameta.allure.attachment.http.HttpResponseAttachment;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+public class AllureFilter implements ApiFilter {
+    public enum Mode { ALWAYS, ON_FAILURE, SAMPLED, OFF }
+
+    private static final AllureFilter INSTANCE = new AllureFilter(
+            Mode.valueOf(System.getProperty("allure.attachments", "always").toUpperCase(Locale.ROOT)),
+            Double.parseDouble(System.getProperty("allure.attachments.sampleRate", "0.1")),
+            Integer.getInteger("allure.attachments.queueSize", 1024));
+    private static final int MAX_BUFFERED_EXCHANGES = 64;
+
+    private final Mode mode;
+    private final double sampleRate;
+    private final ThreadPoolExecutor writer;
+    private final FreemarkerAttachmentRenderer requestRenderer = new FreemarkerAttachmentRenderer("http-request.ftl");
+    private final FreemarkerAttachmentRenderer responseRenderer = new FreemarkerAttachmentRenderer("http-response.ftl");
+    // exchanges of the running test, kept only until we know whether it failed
+    private final ThreadLocal<ArrayDeque<Exchange>> buffered = ThreadLocal.withInitial(ArrayDeque::new);
+    // per running test: its completed async exchanges, see filter, and the mode set by withMode
+    private final ConcurrentHashMap<TestContext, RunningTest> running = new ConcurrentHashMap<>();
+    // set by withMode, inherited by the threads started meanwhile
+    private final InheritableThreadLocal<Mode> modeOverride = new InheritableThreadLocal<>();
+    // attachment writes started by the running test, awaited before the test ends
+    private final ThreadLocal<List<Future<?>>> pendingWrites = ThreadLocal.withInitial(ArrayList::new);
+
+    public AllureFilter(Mode mode, double sampleRate, int queueSize) {
+        this.mode = mode;
+        this.sampleRate = sampleRate;
+        // a full queue makes the caller render its own attachments instead of dropping them
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "allure-attachment-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public static AllureFilter getInstance() {
+        return INSTANCE;
+    }
+
+    // every test has awaited its own writes, this only lets the writer thread go
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    @Override
+    public CompletableFuture<Response> filter(ApiRequest request, FilterChain chain) {
+        TestContext test = request.getTestContext();
+        RunningTest runningTest = test == null ? null : running.get(test);
+        Mode mode = modeOf(runningTest);
+        if (!request.isBlocking()) {
+            // completes on another thread, attached by the test's own thread once it next sends a blocking request or
+            // finishes; a call without a test, or still in flight after that, is not attached
+            if (runningTest == null || !isCaptured(mode)) {
+                return chain.proceed(request);
+            }
+            return chain.proceed(request).thenApply(response -> {
+                runningTest.completedAsync.add(new Exchange(() -> toAttachment(request), response, mode));
+                return response;
+            });
+        }
+        return chain.proceed(request).thenApply(response -> {
+            attachCompletedAsync(runningTest);
+            if (isCaptured(mode)) {
+                keep(new Exchange(() -> toAttachment(request), response, mode));
+            }
+            return response;
+        });
+    }
+
+    // load, soak and fuzz runs send thousands of requests from inside one test; while run runs, the requests of its
+    // thread, of the threads it starts and the async calls of its test are captured in this mode instead
+    public <T> T withMode(Mode mode, Supplier<T> run) {
+        Mode previous = modeOverride.get();
+        TestContext test = TestContext.current();
+        RunningTest runningTest = test == null ? null : running.get(test);
+        Mode previousOfTest = runningTest == null ? null : runningTest.mode;
+        modeOverride.set(mode);
+        if (runningTest != null) {
+            runningTest.mode = mode;
+        }
+        try {
+            return run.get();
+        } finally {
+            if (previous == null) {
+                modeOverride.remove();
+            } else {
+                modeOverride.set(previous);
+            }
+            if (runningTest != null) {
+                runningTest.mode = previousOfTest;
+            }
+        }
+    }
+
+    public void testStarted(TestContext test) {
+        running.put(test, new RunningTest());
+    }
+
+    public void testFinished(TestContext test, boolean failed) {
+        attachCompletedAsync(running.remove(test));
+        ArrayDeque<Exchange> exchanges = buffered.get();
+        if (failed) {
+            for (Exchange exchange : exchanges) {
+                attach(exchange);
+            }
+        }
+        exchanges.clear();
+        flush();
+    }
+
+    public void flush() {
+        List<Future<?>> writes = pendingWrites.get();
+        try {
+            for (Future<?> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // a broken attachment must not fail the test it describes
+        } finally {
+            writes.clear();
+        }
+    }
+
+    private Mode modeOf(RunningTest runningTest) {
+        Mode override = modeOverride.get();
+        if (override == null && runningTest != null) {
+            override = runningTest.mode;
+        }
+        return override != null ? override : mode;
+    }
+
+    private boolean isCaptured(Mode mode) {
+        switch (mode) {
+            case ALWAYS:
+            case ON_FAILURE:
+                return true;
+            case SAMPLED:
+                return ThreadLocalRandom.current().nextDouble() < sampleRate;
+            default:
+                return false;
+        }
+    }
+
+    private void keep(Exchange exchange) {
+        if (exchange.mode != Mode.ON_FAILURE) {
+            attach(exchange);
+            return;
+        }
+        ArrayDeque<Exchange> exchanges = buffered.get();
+        if (exchanges.size() == MAX_BUFFERED_EXCHANGES) {
+            exchanges.removeFirst();
+        }
+        exchanges.addLast(exchange);
+    }
+
+    private void attachCompletedAsync(RunningTest runningTest) {
+        if (runningTest == null) {
+            return;
+        }
+        Queue<Exchange> completed = runningTest.completedAsync;
+        for (Exchange exchange = completed.poll(); exchange != null; exchange = completed.poll()) {
+            keep(exchange);
+        }
+    }
+
+    private void attach(Exchange exchange) {
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        if (!lifecycle.getCurrentTestCaseOrStep().isPresent()) {
+            return;
+        }
+        // reserving the attachment file links it to the current step, the slow rendering happens on the writer
+        String requestSource = lifecycle.prepareAttachment("Request", "text/html", ".html");
+        String responseSource = lifecycle.prepareAttachment(
+                "HTTP response " + exchange.response.getStatusCode(), "text/html", ".html");
+        // copied here, the writer must not read a request or response its test may still be using
+        HttpRequestAttachment request = exchange.request.get();
+        HttpResponseAttachment response = toAttachment(exchange.response);
+        pendingWrites.get().add(writer.submit(() -> {
+            write(lifecycle, requestSource, requestRenderer, request);
+            write(lifecycle, responseSource, responseRenderer, response);
+        }));
+    }
+
+    private static void write(AllureLifecycle lifecycle, String source,
+                              FreemarkerAttachmentRenderer renderer, AttachmentData data) {
+        DefaultAttachmentContent content = renderer.render(data);
+        lifecycle.writeAttachment(source,
+                new ByteArrayInputStream(content.getContent().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // called only once the exchange is attached, until then it holds references
+    private static HttpRequestAttachment toAttachment(ApiRequest apiRequest) {
+        HttpRequestAttachment.Builder request = HttpRequestAttachment.Builder
+                .create("Request", apiRequest.getUri())
+                .setMethod(apiRequest.getMethod())
+                .setHeaders(apiRequest.getHeaders())
+                .setCookies(apiRequest.getCookies());
+        Object body = apiRequest.getBody();
+        if (body != null) {
+            request.setBody(String.valueOf(body));
+        }
+        return request.build();
+    }
+
+    private static HttpResponseAttachment toAttachment(Response response) {
+        return HttpResponseAttachment.Builder
+                .create(response.getStatusLine())
+                .setResponseCode(response.getStatusCode())
+                .setHeaders(toMap(response.getHeaders()))
+                .setBody(response.getBody().asString())
+                .build();
+    }
+
+    private static Map<String, String> toMap(Headers headers) {
+        Map<String, String> map = new HashMap<>();
+        for (Header header : headers) {
+            map.put(header.getName(), header.getValue());
+        }
+        return map;
+    }
+
+    private static class RunningTest {
+        private final Queue<Exchange> completedAsync = new ConcurrentLinkedQueue<>();
+        private volatile Mode mode;
+    }
+
+    private static class Exchange {
+        private final Supplier<HttpRequestAttachment> request;
+        private final Response response;
+        private final Mode mode;
+
+        Exchange(Supplier<HttpRequestAttachment> request, Response response, Mode mode) {
+            this.request = request;
+            this.response = response;
+            this.mode = mode;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package lib;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.CookieStore;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.CoreConnectionPNames;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public class ApiClient {
+    // api.baseUrl=stub runs the suite against an in-process UserServiceStub instead of a remote host
+    private static final UserServiceStub STUB =
+            "stub".equals(System.getProperty("api.baseUrl")) ? UserServiceStub.start() : null;
+    private static final String BASE_URL =
+            STUB != null ? STUB.getBaseUrl() : System.getProperty("api.baseUrl", "https://playground.learnqa.ru");
+    static final int MAX_CONNECTIONS = Integer.getInteger("api.maxConnections", 64);
+    static final int CONNECT_TIMEOUT_MS = Integer.getInteger("api.connectTimeout.ms", 10_000);
+    static final int READ_TIMEOUT_MS = Integer.getInteger("api.readTimeout.ms", 30_000);
+
+    // every call made through ApiClient or AsyncApiCoreRequests passes these in order
+    private static final List<ApiFilter> FILTERS = Arrays.asList(
+            // ahead of the filters that report or record traffic, a cache hit never reaches the network
+            ResponseCache.getInstance(),
+            AllureFilter.getInstance(),
+            MetricsFilter.getInstance(),
+            ExchangeRecorder.getInstance(),
+            UserRegistry.getInstance(),
+            LatencyBudgets.getInstance(),
+            // after the filters that report on a call, so a replayed response still passes through them;
+            // only the throttle comes later, a replay sends nothing to pace
+            CassetteFilter.getInstance(),
+            RequestThrottle.getInstance());
+
+    private static final RestAssuredConfig CONFIG = RestAssuredConfig.config().httpClient(HttpClientConfig.httpClientConfig()
+            .httpClientFactory(ApiClient::createHttpClient)
+            .reuseHttpClientInstance());
+    private static final RequestSpecification BASE_SPEC = specBuilder()
+            .addFilter(new SpecFilter())
+            .build();
+    // load runs time their requests themselves, the filters a test's requests pass would be measured with them
+    private static final RequestSpecification BARE_SPEC = specBuilder().build();
+
+    // a test that picked a @FaultProfile talks to the target through that profile's proxy
+    private static final ThreadLocal<String> ROUTE = new ThreadLocal<>();
+
+    public static RequestSpecification given() {
+        String route = ROUTE.get();
+        return route == null ? RestAssured.given().spec(BASE_SPEC) : RestAssured.given().spec(BASE_SPEC).baseUri(route);
+    }
+
+    static RequestSpecification bare() {
+        return RestAssured.given().spec(BARE_SPEC);
+    }
+
+    public static String getBaseUrl() {
+        String route = ROUTE.get();
+        return route == null ? BASE_URL : route;
+    }
+
+    static String getTargetBaseUrl() {
+        return BASE_URL;
+    }
+
+    static void route(String baseUrl) {
+        if (baseUrl == null) {
+            ROUTE.remove();
+        } else {
+            ROUTE.set(baseUrl);
+        }
+    }
+
+    private static RequestSpecBuilder specBuilder() {
+        return new RequestSpecBuilder()
+                .setBaseUri(BASE_URL)
+                .setBasePath("/api")
+                .setContentType(ContentType.JSON)
+                .setConfig(CONFIG);
+    }
+
+    static CompletableFuture<Response> send(ApiRequest request,
+                                            Function<ApiRequest, CompletableFuture<Response>> transport) {
+        return new FilterChain(FILTERS, transport).proceed(request);
+    }
+
+    public static void shutdown() {
+        if (STUB != null) {
+            STUB.close();
+        }
+    }
+
+    // RestAssured 5 still drives HttpClient 4 through its deprecated AbstractHttpClient API and casts whatever the
+    // factory returns to it, so the deprecated classes and parameters are confined to this method
+    @SuppressWarnings("deprecation")
+    private static HttpClient createHttpClient() {
+        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+
+        DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager);
+        httpClient.getParams().setIntParameter(CoreConnectionPNames.CONNECTION_TIMEOUT, CONNECT_TIMEOUT_MS);
+        httpClient.getParams().setIntParameter(CoreConnectionPNames.SO_TIMEOUT, READ_TIMEOUT_MS);
+        // the client is shared by every test, auth_sid must only ever be sent when a request asks for it
+        httpClient.setCookieStore(new NoCookieStore());
+        // ApiCoreRequests decides what is retried, the client's own handler would resend a dropped POST as well
+        httpClient.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+        // a pooled connection is only released once its body has been read to the end, and plenty of callers never
+        // read it (RestAssured skips an empty body entirely); a buffered body hands the connection back as soon as
+        // the response arrives, whatever the filters and the test do with it afterwards
+        httpClient.addResponseInterceptor((response, context) -> {
+            HttpEntity entity = response.getEntity();
+            if (entity != null && entity.isStreaming()) {
+                response.setEntity(new BufferedHttpEntity(entity));
+            }
+        });
+        return httpClient;
+    }
+
+    // ApiClient's filters as the last of RestAssured's, after any a caller added to its own requests
+    private static class SpecFilter implements OrderedFilter {
+        @Override
+        public Response filter(FilterableRequestSpecification requestSpec,
+                               FilterableResponseSpecification responseSpec, FilterContext ctx) {
+            return FilterChain.await(send(new SpecRequest(requestSpec),
+                    request -> CompletableFuture.completedFuture(ctx.next(requestSpec, responseSpec))));
+        }
+
+        @Override
+        public int getOrder() {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static class SpecRequest extends ApiRequest {
+        private final FilterableRequestSpecification requestSpec;
+
+        SpecRequest(FilterableRequestSpecification requestSpec) {
+            this.requestSpec = requestSpec;
+        }
+
+        @Override
+        public String getMethod() {
+            return requestSpec.getMethod();
+        }
+
+        @Override
+        public String getUri() {
+            return requestSpec.getURI();
+        }
+
+        @Override
+        public Object getBody() {
+            return requestSpec.getBody();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return requestSpec.getHeaders().getValue(name);
+        }
+
+        @Override
+        public String getCookie(String name) {
+            return requestSpec.getCookies().getValue(name);
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            Map<String, String> headers = new HashMap<>();
+            requestSpec.getHeaders().forEach(header -> headers.put(header.getName(), header.getValue()));
+            return headers;
+        }
+
+        @Override
+        public Map<String, String> getCookies() {
+            Map<String, String> cookies = new HashMap<>();
+            requestSpec.getCookies().forEach(cookie -> cookies.put(cookie.getName(), cookie.getValue()));
+            return cookies;
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return true;
+        }
+    }
+
+    private static class NoCookieStore implements CookieStore {
+        @Override
+        public void addCookie(Cookie cookie) {
+        }
+
+        @Override
+        public List<Cookie> getCookies() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean clearExpired(Date date) {
+            return false;
+        }
+
+        @Override
+        public void clear() {
+        }
+    }
+}
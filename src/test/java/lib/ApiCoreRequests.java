@@ -1,76 +1,206 @@
 package lib;
 
 import io.qameta.allure.Step;
-import io.qameta.allure.restassured.AllureRestAssured;
+import io.restassured.filter.Filter;
 import io.restassured.http.Header;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.conn.ConnectTimeoutException;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-
-import static io.restassured.RestAssured.given;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class ApiCoreRequests {
+    static final int RETRIES = Integer.getInteger("api.retries", 2);
+    private static final long BACKOFF_MS = Long.getLong("api.retry.backoff.ms", 100);
+    static final long MAX_BACKOFF_MS = Long.getLong("api.retry.maxBackoff.ms", 2000);
+
+    private final Supplier<RequestSpecification> spec;
+    private final List<Filter> filters;
+
+    // the filters see only this instance's requests, e.g. a LoadRunner's recorder
+    public ApiCoreRequests(Filter... filters) {
+        this(ApiClient::given, filters);
+    }
+
+    private ApiCoreRequests(Supplier<RequestSpecification> spec, Filter... filters) {
+        this.spec = spec;
+        this.filters = Arrays.asList(filters);
+    }
+
+    // requests that pass only the given filters and none of ApiClient's, see LoadRunner
+    static ApiCoreRequests withoutApiFilters(Filter... filters) {
+        return new ApiCoreRequests(ApiClient::bare, filters);
+    }
+
     @Step("Make GET-request with token and cookie")
     public Response makeGetRequest(String url, String token, String cookie){
-        return given()
-                .filter(new AllureRestAssured())
+        return idempotent(() -> given()
                 .header(new Header("x-csrf-token", token))
                 .cookie("auth_sid", cookie)
                 .get(url)
-                .andReturn();
+                .andReturn());
     }
 
     @Step("Make GET-request with cookie only")
     public Response makeGetRequestWithCookie(String url, String cookie){
-        return given()
-                .filter(new AllureRestAssured())
+        return idempotent(() -> given()
                 .cookie("auth_sid", cookie)
                 .get(url)
-                .andReturn();
+                .andReturn());
     }
 
     @Step("Make GET-request with token only")
     public Response makeGetRequestWithToken(String url, String token){
-        return given()
-                .filter(new AllureRestAssured())
+        return idempotent(() -> given()
                 .header(new Header("x-csrf-token", token))
                 .get(url)
-                .andReturn();
+                .andReturn());
     }
 
     @Step("Make POST-request")
     public Response makePostRequest(String url, Map<String, String> authData){
         return given()
-                .filter(new AllureRestAssured())
                 .body(authData)
                 .post(url)
                 .andReturn();
     }
     @Step("Make PUT-request with token and cookie")
     public Response makePutRequestWithTokenAndCookie(String url, String token, String cookie, Map<String, String> editData){
-        return given()
-                .filter(new AllureRestAssured())
+        return idempotent(() -> given()
                 .header("x-csrf-token", token)
                 .cookie("auth_sid", cookie)
                 .body(editData)
                 .put(url)
-                .andReturn();
+                .andReturn());
     }
     @Step("Make PUT-request")
     public Response makePutRequest(String url, Map<String, String> editData){
-        return given()
-                .filter(new AllureRestAssured())
+        return idempotent(() -> given()
                 .body(editData)
                 .put(url)
-                .andReturn();
+                .andReturn());
     }
     @Step("Make DELETE-request")
     public Response makeDeleteRequest(String url, String token, String cookie){
-        return given()
-                .filter(new AllureRestAssured())
+        return ifNotSent(() -> given()
                 .header("x-csrf-token", token)
                 .cookie("auth_sid", cookie)
                 .delete(url)
-                .andReturn();
+                .andReturn());
+    }
+
+    @Step("Get session from pool")
+    public Session getSession(String email, String password){
+        return SessionPool.getInstance().getSession(email, password);
+    }
+
+    @Step("Make GET-request with session")
+    public Response makeGetRequest(String url, Session session){
+        return withSession(session, live -> makeGetRequest(url, live.getToken(), live.getCookie()));
+    }
+
+    @Step("Make PUT-request with session")
+    public Response makePutRequestWithSession(String url, Session session, Map<String, String> editData){
+        return withSession(session,
+                live -> makePutRequestWithTokenAndCookie(url, live.getToken(), live.getCookie(), editData));
+    }
+
+    @Step("Make DELETE-request with session")
+    public Response makeDeleteRequest(String url, Session session){
+        return withSession(session, live -> makeDeleteRequest(url, live.getToken(), live.getCookie()));
+    }
+
+    // GET and PUT can be sent again safely when the server was overloaded or the connection failed
+    private Response idempotent(Supplier<Response> request){
+        return withRetries(request, true);
+    }
+
+    // a DELETE removes whichever user the session belongs to, so it is only sent again if it never reached the server
+    private Response ifNotSent(Supplier<Response> request){
+        return withRetries(request, false);
+    }
+
+    private Response withRetries(Supplier<Response> request, boolean resend){
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Response response = request.get();
+                if (!resend || attempt == RETRIES || !isRetryable(response.statusCode())) {
+                    return response;
+                }
+                long delay = retryDelay(attempt, response.getHeader("Retry-After"));
+                // the server wants a longer pause than a test should sit through, so its answer stands
+                if (delay > MAX_BACKOFF_MS) {
+                    return response;
+                }
+                sleep(delay);
+            } catch (RuntimeException e) {
+                if (attempt == RETRIES || !(resend ? isConnectionFailure(e) : isConnectFailure(e))) {
+                    throw e;
+                }
+                sleep(retryDelay(attempt, null));
+            }
+        }
+    }
+
+    static long retryDelay(int attempt, String retryAfter){
+        if (retryAfter != null && retryAfter.trim().matches("\\d{1,9}")) {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        }
+        // full jitter keeps clients that failed together from retrying together
+        return ThreadLocalRandom.current().nextLong(Math.min(MAX_BACKOFF_MS, BACKOFF_MS << attempt) + 1);
+    }
+
+    private static void sleep(long delay){
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry a request", e);
+        }
+    }
+
+    static boolean isRetryable(int statusCode){
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    static boolean isConnectionFailure(Throwable e){
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // refused or timed out while connecting, nothing was sent
+    static boolean isConnectFailure(Throwable e){
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RequestSpecification given(){
+        return filters.isEmpty() ? spec.get() : spec.get().filters(filters);
+    }
+
+    private Response withSession(Session session, Function<Session, Response> request){
+        Response response = request.apply(session);
+        if (SessionPool.isAuthFailure(response)) {
+            response = request.apply(SessionPool.getInstance().renew(session));
+        }
+        return response;
     }
 }
@@ -0,0 +1,11 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.util.concurrent.CompletableFuture;
+
+// A cross-cutting hook of every API call, see ApiClient.FILTERS and FilterChain
+public interface ApiFilter {
+
+    CompletableFuture<Response> filter(ApiRequest request, FilterChain chain);
+}
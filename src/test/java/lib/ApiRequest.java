@@ -0,0 +1,36 @@
+package lib;
+
+import java.util.Map;
+
+// One request as ApiClient's filters see it, sent by RestAssured or by AsyncApiCoreRequests. It is made on the
+// caller's thread and remembers the test that made it, the filters of an async call run on other threads.
+public abstract class ApiRequest {
+    private final TestContext testContext = TestContext.current();
+    private final String thread = Thread.currentThread().getName();
+
+    public abstract String getMethod();
+
+    public abstract String getUri();
+
+    public abstract Object getBody();
+
+    public abstract String getHeader(String name);
+
+    public abstract String getCookie(String name);
+
+    public abstract Map<String, String> getHeaders();
+
+    public abstract Map<String, String> getCookies();
+
+    // the caller waits for the response on its own thread, every future a filter gets back is already complete and
+    // the filter must hand its result back on that thread too
+    public abstract boolean isBlocking();
+
+    public TestContext getTestContext() {
+        return testContext;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+}
@@ -2,30 +2,49 @@ package lib;
 
 import io.restassured.response.Response;
 
-import static org.hamcrest.Matchers.hasKey;
-import static org.hamcrest.Matchers.not;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 public class Assertions {
     public static void assertJsonByName(Response Response, String name, int expectedResult) {
-        Response.then().assertThat().body("$",hasKey(name));
-
-        int value = Response.jsonPath().getInt(name);
+        int value = jsonWithField(Response, name).getInt(name);
         assertEquals(expectedResult, value, "JSON value is not equal to expected value");
     }
     public static void assertJsonByName(Response Response, String name, String expectedResult) {
-        Response.then().assertThat().body("$",hasKey(name));
-
-        String value = Response.jsonPath().getString(name);
+        String value = jsonWithField(Response, name).getString(name);
         assertEquals(expectedResult, value, "JSON value is not equal to expected value");
     }
 
     public static void assertResponseTextEquals(Response Response, String expectedAnswer) {
-        assertEquals(
-                expectedAnswer,
-                Response.asString(),
-                "Response text is not expected"
-        );
+        // compared on the raw bytes, the body is only decoded to a String for the failure message
+        if (!BodyMatcher.equals(Response.asByteArray(), expectedAnswer)) {
+            assertEquals(expectedAnswer, Response.asString(), "Response text is not expected");
+        }
+    }
+    public static void assertResponseTextStartsWith(Response Response, String expectedPrefix) {
+        if (!BodyMatcher.startsWith(Response.asByteArray(), expectedPrefix)) {
+            fail("Response text does not start with '" + expectedPrefix + "': " + Response.asString());
+        }
+    }
+    public static void assertResponseTextContains(Response Response, String expectedFragment) {
+        if (!BodyMatcher.contains(Response.asByteArray(), expectedFragment)) {
+            fail("Response text does not contain '" + expectedFragment + "': " + Response.asString());
+        }
+    }
+    public static void assertHtmlBodyTextEquals(Response Response, String expectedText) {
+        byte[] body = Response.asByteArray();
+        if (!BodyMatcher.htmlBodyTextEquals(body, expectedText)) {
+            assertEquals(expectedText, BodyMatcher.htmlBodyText(body), "Not expected <body> result");
+        }
     }
     public static void assertResponseCodeEquals(Response Response, int expectedStatusCode) {
         assertEquals(
@@ -36,17 +55,18 @@ public class Assertions {
     }
 
     public static void assertJsonHasField(Response Response, String expectedFieldName) {
-            Response.then().body("$", hasKey(expectedFieldName));
+        jsonWithField(Response, expectedFieldName);
     }
 
     public static void assertJsonHasFields(Response Response, String[] expectedFieldNames) {
         for(String expectedFieldName : expectedFieldNames){
-            assertJsonHasField(Response, expectedFieldName);
+            jsonWithField(Response, expectedFieldName);
         }
     }
 
     public static void assertJsonHasNotField(Response Response, String notExpectedFieldName) {
-        Response.then().body("$", not(hasKey(notExpectedFieldName)));
+        assertFalse(json(Response).has(notExpectedFieldName),
+                "Response JSON has unexpected field with name " + notExpectedFieldName);
     }
 
     public static void assertJsonHasNotFields(Response Response, String[] notExpectedFieldNames) {
@@ -54,4 +74,76 @@ public class Assertions {
             assertJsonHasNotField(Response, notExpectedFieldName);
         }
     }
+
+    public static void assertResponseTimeWithinBudget(Response Response) {
+        LatencyBudgets.Call call = LatencyBudgets.getInstance().callOf(Response);
+        assertResponseTimeWithin(call, LatencyBudgets.getInstance().getMaxMillis(call.getEndpoint()));
+    }
+
+    public static void assertResponseTimeWithinBudget(Response Response, long maxMillis) {
+        assertResponseTimeWithin(LatencyBudgets.getInstance().callOf(Response), maxMillis);
+    }
+
+    public static void assertPercentileWithinBudget(Collection<Response> responses, double percentile) {
+        List<LatencyBudgets.Call> calls = new ArrayList<>();
+        for (Response Response : responses) {
+            calls.add(LatencyBudgets.getInstance().callOf(Response));
+        }
+        assertPercentileWithin(calls, percentile);
+    }
+
+    public static void assertSeriesWithinBudget(String seriesName, double percentile) {
+        List<LatencyBudgets.Call> calls = LatencyBudgets.getInstance().getSeries(seriesName);
+        assertFalse(calls.isEmpty(), "No responses were recorded for latency series " + seriesName);
+        assertPercentileWithin(calls, percentile);
+    }
+
+    private static void assertResponseTimeWithin(LatencyBudgets.Call call, long maxMillis) {
+        assertTrue(call.getMillis() <= maxMillis, call + ", budget is " + maxMillis + " ms");
+    }
+
+    // each endpoint in the group is held to its own budget, the report lists every call above it
+    private static void assertPercentileWithin(List<LatencyBudgets.Call> calls, double percentile) {
+        Map<String, List<LatencyBudgets.Call>> byEndpoint = new TreeMap<>();
+        for (LatencyBudgets.Call call : calls) {
+            byEndpoint.computeIfAbsent(call.getEndpoint(), endpoint -> new ArrayList<>()).add(call);
+        }
+
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, List<LatencyBudgets.Call>> entry : byEndpoint.entrySet()) {
+            List<LatencyBudgets.Call> endpointCalls = entry.getValue();
+            endpointCalls.sort(Comparator.comparingLong(LatencyBudgets.Call::getMillis));
+            long budget = LatencyBudgets.getInstance().getPercentileMillis(entry.getKey(), percentile);
+            int rank = Math.max(1, (int) Math.ceil(percentile / 100.0 * endpointCalls.size()));
+            long observed = endpointCalls.get(rank - 1).getMillis();
+            if (observed <= budget) {
+                continue;
+            }
+            report.append('\n').append(entry.getKey()).append(": p")
+                    .append(percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile))
+                    .append(" of ")
+                    .append(endpointCalls.size()).append(" calls is ").append(observed)
+                    .append(" ms, budget is ").append(budget).append(" ms");
+            for (LatencyBudgets.Call call : endpointCalls) {
+                if (call.getMillis() > budget) {
+                    report.append("\n    ").append(call);
+                }
+            }
+        }
+        if (report.length() > 0) {
+            fail("Response time budget exceeded:" + report);
+        }
+    }
+
+    static JsonView jsonWithField(Response Response, String name) {
+        JsonView json = json(Response);
+        assertTrue(json.has(name), "Response JSON does not have field with name " + name);
+        return json;
+    }
+
+    private static JsonView json(Response Response) {
+        JsonView json = JsonView.of(Response);
+        assertTrue(json.isObject(), "Response is not a JSON object: " + Response.asString());
+        return json;
+    }
 }
@@ -0,0 +1,235 @@
+package lib;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Cookie;
+import io.restassured.http.Cookies;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Same calls as ApiCoreRequests, sent without blocking the caller. They pass ApiClient's filters like any other call
+// and are retried the same way; the wait before a retry is scheduled, not slept.
+public class AsyncApiCoreRequests {
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(ApiClient.CONNECT_TIMEOUT_MS))
+            .build();
+    private static final Duration READ_TIMEOUT = Duration.ofMillis(ApiClient.READ_TIMEOUT_MS);
+
+    public CompletableFuture<Response> makeGetRequest(String url, String token, String cookie){
+        return send("GET", url, token, cookie, null);
+    }
+
+    public CompletableFuture<Response> makePostRequest(String url, Map<String, String> authData){
+        return send("POST", url, null, null, toJson(authData));
+    }
+
+    public CompletableFuture<Response> makePutRequestWithTokenAndCookie(String url, String token, String cookie,
+                                                                        Map<String, String> editData){
+        return send("PUT", url, token, cookie, toJson(editData));
+    }
+
+    // the body is sent as it is, it does not have to be valid JSON
+    public CompletableFuture<Response> makePostRequest(String url, String body){
+        return send("POST", url, null, null, body);
+    }
+
+    public CompletableFuture<Response> makePutRequestWithTokenAndCookie(String url, String token, String cookie,
+                                                                        String body){
+        return send("PUT", url, token, cookie, body);
+    }
+
+    public CompletableFuture<Response> makeDeleteRequest(String url, String token, String cookie){
+        return send("DELETE", url, token, cookie, null);
+    }
+
+    private static CompletableFuture<Response> send(String method, String url, String token, String cookie, String body) {
+        String uri = url.startsWith("http://") || url.startsWith("https://") ? url : ApiClient.getBaseUrl() + "/api" + url;
+        AsyncRequest request = new AsyncRequest(method, uri, token, cookie, body);
+        // resent on the same terms as ApiCoreRequests: GET and PUT when the server was overloaded or the connection
+        // failed, a DELETE only if it never reached the server
+        return method.equals("POST") ? ApiClient.send(request, AsyncApiCoreRequests::transport)
+                : withRetries(request, !method.equals("DELETE"), 0);
+    }
+
+    private static CompletableFuture<Response> withRetries(AsyncRequest request, boolean resend, int attempt) {
+        CompletableFuture<Response> response = ApiClient.send(request, AsyncApiCoreRequests::transport);
+        if (attempt == ApiCoreRequests.RETRIES) {
+            return response;
+        }
+        return response.handle((received, failure) -> {
+            long delay;
+            if (failure != null) {
+                if (!(resend ? ApiCoreRequests.isConnectionFailure(failure) : ApiCoreRequests.isConnectFailure(failure))) {
+                    return response;
+                }
+                delay = ApiCoreRequests.retryDelay(attempt, null);
+            } else {
+                if (!resend || !ApiCoreRequests.isRetryable(received.statusCode())) {
+                    return response;
+                }
+                delay = ApiCoreRequests.retryDelay(attempt, received.getHeader("Retry-After"));
+                // the server wants a longer pause than a test should sit through, so its answer stands
+                if (delay > ApiCoreRequests.MAX_BACKOFF_MS) {
+                    return response;
+                }
+            }
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(waited -> withRetries(request, resend, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    private static CompletableFuture<Response> transport(ApiRequest request) {
+        Object body = request.getBody();
+        HttpRequest.Builder httpRequest = HttpRequest.newBuilder(URI.create(request.getUri()))
+                .timeout(READ_TIMEOUT)
+                .method(request.getMethod(), body == null
+                        ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString((String) body));
+        request.getHeaders().forEach(httpRequest::header);
+        request.getCookies().forEach((name, value) -> httpRequest.header("Cookie", name + "=" + value));
+        return CLIENT.sendAsync(httpRequest.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(AsyncApiCoreRequests::toResponse);
+    }
+
+    private static Response toResponse(HttpResponse<byte[]> httpResponse) {
+        List<Header> headers = new ArrayList<>();
+        httpResponse.headers().map().forEach((name, values) -> {
+            for (String value : values) {
+                headers.add(new Header(name, value));
+            }
+        });
+        return buildResponse(httpResponse.statusCode(), headers, httpResponse.body());
+    }
+
+    // the rest of the suite reads headers, cookies and JSON through RestAssured's Response
+    static Response buildResponse(int statusCode, List<Header> headers, byte[] body) {
+        List<Cookie> cookies = new ArrayList<>();
+        String contentType = null;
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase("Set-Cookie")) {
+                for (HttpCookie cookie : HttpCookie.parse(header.getValue())) {
+                    cookies.add(new Cookie.Builder(cookie.getName(), cookie.getValue()).build());
+                }
+            } else if (header.getName().equalsIgnoreCase("Content-Type")) {
+                contentType = header.getValue();
+            }
+        }
+
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(statusCode)
+                .setStatusLine("HTTP/1.1 " + statusCode)
+                .setHeaders(new Headers(headers))
+                .setCookies(new Cookies(cookies))
+                .setBody(body);
+        if (contentType != null) {
+            builder.setContentType(contentType);
+        }
+        return builder.build();
+    }
+
+    private static class AsyncRequest extends ApiRequest {
+        private final String method;
+        private final String uri;
+        private final String body;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private final Map<String, String> cookies = new LinkedHashMap<>();
+
+        AsyncRequest(String method, String uri, String token, String cookie, String body) {
+            this.method = method;
+            this.uri = uri;
+            this.body = body;
+            headers.put("Content-Type", "application/json");
+            if (token != null) {
+                headers.put("x-csrf-token", token);
+            }
+            if (cookie != null) {
+                cookies.put("auth_sid", cookie);
+            }
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getUri() {
+            return uri;
+        }
+
+        @Override
+        public Object getBody() {
+            return body;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.get(name);
+        }
+
+        @Override
+        public String getCookie(String name) {
+            return cookies.get(name);
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Map<String, String> getCookies() {
+            return cookies;
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return false;
+        }
+    }
+
+    private static String toJson(Map<String, String> data) {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            appendString(json, entry.getKey());
+            json.append(':');
+            appendString(json, entry.getValue());
+        }
+        return json.append('}').toString();
+    }
+
+    static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
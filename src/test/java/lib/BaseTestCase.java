@@ -2,12 +2,13 @@ package lib;
 
 import io.restassured.http.Headers;
 import io.restassured.response.Response;
+import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.util.Map;
 
-import static org.hamcrest.Matchers.hasKey;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+@ExtendWith(FrameworkExtension.class)
 public class BaseTestCase {
 
     protected String getHeader(Response Response, String name) {
@@ -25,8 +26,7 @@ public class BaseTestCase {
     }
 
     protected int getIntFromJson(Response Response, String name) {
-        Response.then().assertThat().body("$", hasKey(name));
-        return Response.jsonPath().getInt(name);
+        return Assertions.jsonWithField(Response, name).getInt(name);
     }
 
 }
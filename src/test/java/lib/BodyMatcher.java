@@ -0,0 +1,139 @@
+package lib;
+
+import java.nio.charset.StandardCharsets;
+
+// Matches response bodies byte by byte and stops at the first difference; the API answers with ASCII/UTF-8 text,
+// so expected strings are compared in their UTF-8 form and no String or DOM is built for the body.
+public class BodyMatcher {
+
+    public static boolean equals(byte[] body, String expected) {
+        byte[] pattern = expected.getBytes(StandardCharsets.UTF_8);
+        return body.length == pattern.length && regionMatches(body, 0, pattern);
+    }
+
+    public static boolean startsWith(byte[] body, String prefix) {
+        byte[] pattern = prefix.getBytes(StandardCharsets.UTF_8);
+        return body.length >= pattern.length && regionMatches(body, 0, pattern);
+    }
+
+    public static boolean contains(byte[] body, String fragment) {
+        return indexOf(body, fragment.getBytes(StandardCharsets.UTF_8), 0, body.length) >= 0;
+    }
+
+    // compares the text of a trivial HTML document, or of a plain-text body, like html.body read by an HTML parser:
+    // tags dropped without adding a space, the basic entities decoded; whitespace runs are collapsed and trimmed on
+    // both sides
+    public static boolean htmlBodyTextEquals(byte[] body, String expected) {
+        byte[] pattern = collapseWhitespace(expected).getBytes(StandardCharsets.UTF_8);
+        int[] range = bodyRange(body);
+        int matched = 0;
+        boolean pendingSpace = false;
+        for (int i = range[0]; i < range[1]; i++) {
+            int c = body[i] & 0xFF;
+            if (c == '<') {
+                int end = indexOf(body, new byte[] {'>'}, i, range[1]);
+                i = end < 0 ? range[1] : end;
+                continue;
+            }
+            if (c == '&') {
+                int end = indexOf(body, new byte[] {';'}, i, Math.min(range[1], i + 8));
+                int decoded = end < 0 ? -1 : entity(body, i + 1, end);
+                if (decoded >= 0) {
+                    c = decoded;
+                    i = end;
+                }
+            }
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                pendingSpace = matched > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                if (matched == pattern.length || pattern[matched] != ' ') {
+                    return false;
+                }
+                matched++;
+                pendingSpace = false;
+            }
+            if (matched == pattern.length || (pattern[matched] & 0xFF) != c) {
+                return false;
+            }
+            matched++;
+        }
+        return matched == pattern.length;
+    }
+
+    public static String htmlBodyText(byte[] body) {
+        int[] range = bodyRange(body);
+        String raw = new String(body, range[0], range[1] - range[0], StandardCharsets.UTF_8);
+        return collapseWhitespace(raw.replaceAll("<[^>]*>", "")).replace("&lt;", "<").replace("&gt;", ">")
+                .replace("&quot;", "\"").replace("&#39;", "'").replace("&amp;", "&");
+    }
+
+    // the whitespace htmlBodyTextEquals skips in the body, so the expected text is read the same way
+    private static String collapseWhitespace(String text) {
+        StringBuilder collapsed = new StringBuilder(text.length());
+        for (String part : text.split("[ \\t\\n\\r]+")) {
+            if (!part.isEmpty()) {
+                collapsed.append(collapsed.length() == 0 ? "" : " ").append(part);
+            }
+        }
+        return collapsed.toString();
+    }
+
+    // the content of <body>, or the whole document when there is no body tag
+    private static int[] bodyRange(byte[] body) {
+        int open = indexOfIgnoreCase(body, "<body", 0);
+        if (open < 0) {
+            return new int[] {0, body.length};
+        }
+        int start = indexOf(body, new byte[] {'>'}, open, body.length);
+        if (start < 0) {
+            return new int[] {body.length, body.length};
+        }
+        int close = indexOfIgnoreCase(body, "</body", start);
+        return new int[] {start + 1, close < 0 ? body.length : close};
+    }
+
+    private static int entity(byte[] body, int from, int to) {
+        String name = new String(body, from, to - from, StandardCharsets.US_ASCII);
+        switch (name) {
+            case "amp": return '&';
+            case "lt": return '<';
+            case "gt": return '>';
+            case "quot": return '"';
+            case "#39": return '\'';
+            default: return -1;
+        }
+    }
+
+    private static boolean regionMatches(byte[] body, int offset, byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (body[offset + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] body, byte[] pattern, int from, int to) {
+        for (int i = from; i <= to - pattern.length; i++) {
+            if (body[i] == pattern[0] && regionMatches(body, i, pattern)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfIgnoreCase(byte[] body, String pattern, int from) {
+        outer:
+        for (int i = from; i <= body.length - pattern.length(); i++) {
+            for (int j = 0; j < pattern.length(); j++) {
+                if (Character.toLowerCase(body[i + j]) != pattern.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,268 @@
+package lib;
+
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+// Records every exchange into an append-only cassette file, or answers requests from one without touching the network.
+// Record layout: test id, key, status, header count, headers, body; strings and the body are length-prefixed.
+// Exchanges replay in recorded order per test, so parallel tests get their own responses back.
+public class CassetteFilter implements ApiFilter {
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    private static final CassetteFilter INSTANCE = new CassetteFilter(
+            Mode.valueOf(System.getProperty("cassette", "off").toUpperCase(Locale.ROOT)),
+            Paths.get(System.getProperty("cassette.file", "target/cassettes/api.cassette")));
+    private static final int MAGIC = 0x43415331;
+    private static final Pattern GENERATED_EMAIL = Pattern.compile("learnqa[0-9a-z]{17}[0-9]+@example\\.com");
+
+    private final Mode mode;
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    // key -> offsets of its recorded responses, in recording order; only written while loading. Keys are indexed
+    // with and without the test id, calls made through shared caches fall back to the run-wide order
+    private final Map<String, int[]> index = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new HashMap<>();
+
+    public CassetteFilter(Mode mode, Path file) {
+        this.mode = mode;
+        this.file = file;
+        try {
+            if (mode == Mode.RECORD) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                channel.write(ByteBuffer.allocate(4).putInt(0, MAGIC));
+            } else if (mode == Mode.REPLAY) {
+                load();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open cassette " + file, e);
+        }
+    }
+
+    public static CassetteFilter getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isRecording() {
+        return mode == Mode.RECORD;
+    }
+
+    public boolean isReplaying() {
+        return mode == Mode.REPLAY;
+    }
+
+    public boolean isActive() {
+        return mode != Mode.OFF;
+    }
+
+    @Override
+    public CompletableFuture<Response> filter(ApiRequest request, FilterChain chain) {
+        if (mode == Mode.OFF) {
+            return chain.proceed(request);
+        }
+        Object body = request.getBody();
+        String key = key(request.getMethod(), request.getUri(), request.getHeader("x-csrf-token") != null,
+                request.getCookie("auth_sid") != null, body == null ? null : String.valueOf(body));
+        String scope = scope(request.getTestContext());
+        if (mode == Mode.REPLAY) {
+            return CompletableFuture.completedFuture(replay(scope, key));
+        }
+        return chain.proceed(request).thenApply(response -> record(scope, key, response));
+    }
+
+    // token and cookie values change on every run, only whether the request carried them matters; in the body only
+    // generated emails are replaced, every other value stays part of the key
+    public static String key(String method, String uri, boolean token, boolean cookie, String body) {
+        int start = uri.indexOf("://");
+        String path = start < 0 ? uri : uri.substring(Math.max(uri.indexOf('/', start + 3), start + 3));
+        StringBuilder key = new StringBuilder(method).append(' ');
+        for (String segment : path.split("/", -1)) {
+            if (key.charAt(key.length() - 1) != ' ') {
+                key.append('/');
+            }
+            // ids of users created during the run change every time, the fixed test users 1-5 do not
+            key.append(segment.matches("\\d{2,}|[6-9]") ? "{id}" : segment);
+        }
+        key.append(token ? " token" : "").append(cookie ? " cookie" : "");
+        if (body != null) {
+            key.append('\n');
+            appendBody(key, body);
+        }
+        return key.toString();
+    }
+
+    // a single pass over the "name":"value" pairs, as any request body can come through here, a fuzzer's megabyte
+    // string included
+    private static void appendBody(StringBuilder key, String body) {
+        int end = 0;
+        int position = body.indexOf('"');
+        while (position >= 0) {
+            int nameEnd = closingQuote(body, position + 1);
+            if (nameEnd < 0) {
+                break;
+            }
+            if (!body.startsWith(":\"", nameEnd + 1)) {
+                position = body.indexOf('"', nameEnd + 1);
+                continue;
+            }
+            int valueEnd = closingQuote(body, nameEnd + 3);
+            if (valueEnd < 0) {
+                break;
+            }
+            if (GENERATED_EMAIL.matcher(body).region(nameEnd + 3, valueEnd).matches()) {
+                key.append(body, end, nameEnd + 2).append("<email>");
+                end = valueEnd + 1;
+            }
+            position = body.indexOf('"', valueEnd + 1);
+        }
+        key.append(body, end, body.length());
+    }
+
+    private static int closingQuote(String body, int from) {
+        for (int i = from; i < body.length(); i++) {
+            char current = body.charAt(i);
+            if (current == '\\') {
+                i++;
+            } else if (current == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Response replay(String scope, String key) {
+        String scopedKey = scope + key;
+        if (!index.containsKey(scopedKey)) {
+            scopedKey = key;
+        }
+        int[] offsets = index.get(scopedKey);
+        if (offsets == null) {
+            throw new IllegalStateException("No recorded response in " + file + " for " + key);
+        }
+        // once a key's recordings run out the last one keeps being served
+        int offset = offsets[Math.min(cursors.get(scopedKey).getAndIncrement(), offsets.length - 1)];
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position(offset);
+        readString(buffer);
+        readString(buffer);
+        int statusCode = buffer.getInt();
+        int headerCount = buffer.getInt();
+        List<Header> headers = new ArrayList<>(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            headers.add(new Header(readString(buffer), readString(buffer)));
+        }
+        byte[] body = new byte[buffer.getInt()];
+        buffer.get(body);
+        return AsyncApiCoreRequests.buildResponse(statusCode, headers, body);
+    }
+
+    private Response record(String scope, String key, Response response) {
+        byte[] scopeBytes = scope.getBytes(StandardCharsets.UTF_8);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] body = response.asByteArray();
+        List<byte[]> headers = new ArrayList<>();
+        int size = 4 + scopeBytes.length + 4 + keyBytes.length + 4 + 4 + 4 + body.length;
+        for (Header header : response.getHeaders()) {
+            byte[] name = header.getName().getBytes(StandardCharsets.UTF_8);
+            byte[] value = header.getValue().getBytes(StandardCharsets.UTF_8);
+            headers.add(name);
+            headers.add(value);
+            size += 8 + name.length + value.length;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.putInt(scopeBytes.length).put(scopeBytes)
+                .putInt(keyBytes.length).put(keyBytes)
+                .putInt(response.statusCode())
+                .putInt(headers.size() / 2);
+        for (byte[] part : headers) {
+            record.putInt(part.length).put(part);
+        }
+        record.putInt(body.length).put(body).flip();
+        try {
+            synchronized (this) {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to cassette " + file, e);
+        }
+        return response;
+    }
+
+    public void close() {
+        try {
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close cassette " + file, e);
+        }
+    }
+
+    private void load() throws IOException {
+        try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+        }
+        if (mapped.limit() < 4 || mapped.getInt(0) != MAGIC) {
+            throw new IllegalStateException(file + " is not a cassette file");
+        }
+
+        // one sequential pass builds the in-memory index, bodies stay in the mapped file until replayed
+        Map<String, List<Integer>> offsets = new HashMap<>();
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position(4);
+        while (buffer.remaining() >= 4) {
+            int offset = buffer.position();
+            String scope = readString(buffer);
+            String key = readString(buffer);
+            buffer.getInt();
+            int headerCount = buffer.getInt();
+            for (int i = 0; i < headerCount * 2; i++) {
+                buffer.position(buffer.position() + 4 + buffer.getInt(buffer.position()));
+            }
+            buffer.position(buffer.position() + 4 + buffer.getInt(buffer.position()));
+            offsets.computeIfAbsent(key, k -> new ArrayList<>()).add(offset);
+            if (!scope.isEmpty()) {
+                offsets.computeIfAbsent(scope + key, k -> new ArrayList<>()).add(offset);
+            }
+        }
+        for (Map.Entry<String, List<Integer>> entry : offsets.entrySet()) {
+            index.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            cursors.put(entry.getKey(), new AtomicInteger());
+        }
+    }
+
+    private static String scope(TestContext test) {
+        return test == null ? "" : test.getTestId() + '\u0000';
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
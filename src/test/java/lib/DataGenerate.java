@@ -1,21 +1,59 @@
 package lib;
 
-import java.nio.charset.Charset;
-import java.text.SimpleDateFormat;
+import java.security.SecureRandom;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 public class DataGenerate {
+    public enum CharClass {
+        LOWER_CASE("abcdefghijklmnopqrstuvwxyz"),
+        UPPER_CASE("ABCDEFGHIJKLMNOPQRSTUVWXYZ"),
+        DIGITS("0123456789"),
+        SYMBOLS("!#$%&*+-.=?^_~ ");
+
+        private final char[] alphabet;
+
+        CharClass(String alphabet) {
+            this.alphabet = alphabet.toCharArray();
+        }
+    }
+
+    // fixed-width node id: JVM start time plus a salted pid, so forks and parallel runs never share a prefix
+    private static final String NODE_ID = pad(Long.toString(System.currentTimeMillis(), 36), 9)
+            + pad(Long.toString(((ProcessHandle.current().pid() << 20)
+                    ^ (new SecureRandom().nextInt() & 0xFFFFFFFFL)) & 0xFFFFFFFFFFL, 36), 8);
+    private static final int SEQUENCE_BLOCK_SIZE = 1024;
+    private static final AtomicLong SEQUENCE_BLOCKS = new AtomicLong();
+    // [next, limit] of the block owned by the current thread, threads only touch the shared counter once per block
+    private static final ThreadLocal<long[]> SEQUENCE = ThreadLocal.withInitial(() -> new long[2]);
 
     public static String getRandomEmail(){
-        String timeStamp = new SimpleDateFormat("yyyyMMddmmss").format(new java.util.Date());
-        return "learnqa" + timeStamp + "@example.com";
+        return new StringBuilder(48)
+                .append("learnqa")
+                .append(NODE_ID)
+                .append(nextSequence())
+                .append("@example.com")
+                .toString();
+    }
+
+    public static Supplier<Map<String, String>> registrationDataSupplier(){
+        return DataGenerate::getRegistrationData;
+    }
+
+    public static Stream<Map<String, String>> registrationDataStream(){
+        return Stream.generate(DataGenerate::getRegistrationData);
     }
 
     public static Map<String, String> getRegistrationData(){
-        Map<String, String> data = new HashMap<>();
+        Map<String, String> data = new HashMap<>(8);
 
         data.put("email", DataGenerate.getRandomEmail());
         data.put("password","123");
@@ -42,15 +80,55 @@ public class DataGenerate {
     }
 
     public static String getRandomStringWithGivenSize(int size) {
-        int leftLimit = 97; // letter 'a'
-        int rightLimit = 122; // letter 'z'
-        Random random = new Random();
+        return getRandomStringWithGivenSize(size, CharClass.LOWER_CASE);
+    }
 
-        String generatedString = random.ints(leftLimit, rightLimit + 1)
-                .limit(size)
-                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
-                .toString();
-        return generatedString;
+    public static String getRandomStringWithGivenSize(int size, CharClass charClass) {
+        char[] alphabet = charClass.alphabet;
+        // a cassette keys on request bodies, so while one is active a string only depends on its size and class
+        Random random = CassetteFilter.getInstance().isActive()
+                ? new Random(size * 31L + charClass.ordinal()) : ThreadLocalRandom.current();
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return new String(chars);
+    }
+
+    public static int[] boundaryLengths(int min, int max) {
+        return IntStream.of(0, 1, min - 1, min, min + 1, max - 1, max, max + 1)
+                .filter(length -> length >= 0)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    // every combination of boundary length and character class for the given fields, the other fields keep their
+    // defaults; cases are only built when the stream reaches them
+    public static Stream<Map<String, String>> boundaryRegistrationData(int min, int max, String... fields) {
+        return boundaryRegistrationData(boundaryLengths(min, max), fields);
+    }
+
+    // the same, for just the given lengths
+    public static Stream<Map<String, String>> boundaryRegistrationData(int[] lengths, String... fields) {
+        CharClass[] charClasses = CharClass.values();
+        int radix = lengths.length * charClasses.length;
+        long total = 1;
+        for (int i = 0; i < fields.length; i++) {
+            total = Math.multiplyExact(total, radix);
+        }
+
+        return LongStream.range(0, total).mapToObj(index -> {
+            Map<String, String> data = getRegistrationData();
+            long rest = index;
+            for (String field : fields) {
+                int digit = (int) (rest % radix);
+                rest /= radix;
+                data.put(field, getRandomStringWithGivenSize(lengths[digit / charClasses.length],
+                        charClasses[digit % charClasses.length]));
+            }
+            return data;
+        });
     }
 
     public static Map<String, String> getRegistrationDataWithoutOneField(String notExpectedFiledName){
@@ -65,4 +143,21 @@ public class DataGenerate {
         }
         return userData;
     }
+
+    private static long nextSequence() {
+        long[] block = SEQUENCE.get();
+        if (block[0] == block[1]) {
+            block[0] = SEQUENCE_BLOCKS.getAndIncrement() * SEQUENCE_BLOCK_SIZE;
+            block[1] = block[0] + SEQUENCE_BLOCK_SIZE;
+        }
+        return block[0]++;
+    }
+
+    private static String pad(String value, int width) {
+        StringBuilder padded = new StringBuilder(width);
+        for (int i = value.length(); i < width; i++) {
+            padded.append('0');
+        }
+        return padded.append(value).toString();
+    }
 }
@@ -0,0 +1,115 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Emits a lib.HttpExchange JFR event for every request (recorded when the run is started with
+// -XX:StartFlightRecording) and keeps the last exchanges in a ring (-Dexchanges.ringSize) that is only printed
+// when a test fails, so a passing test pays for a few field writes and nothing is rendered.
+public class ExchangeRecorder implements ApiFilter {
+    private static final ExchangeRecorder INSTANCE = new ExchangeRecorder(Integer.getInteger("exchanges.ringSize", 256));
+    private static final int MAX_PRINTED_BODY = 2048;
+
+    private final AtomicReferenceArray<Exchange> ring;
+    private final AtomicLong written = new AtomicLong();
+
+    public ExchangeRecorder(int ringSize) {
+        this.ring = new AtomicReferenceArray<>(Math.max(1, ringSize));
+    }
+
+    public static ExchangeRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public CompletableFuture<Response> filter(ApiRequest request, FilterChain chain) {
+        Exchange exchange = new Exchange(request);
+        return chain.proceed(request).whenComplete((response, failure) -> exchange.complete(response));
+    }
+
+    public void dump(String testId) {
+        StringBuilder report = new StringBuilder();
+        long end = written.get();
+        for (long i = Math.max(0, end - ring.length()); i < end; i++) {
+            Exchange exchange = ring.get((int) (i % ring.length()));
+            if (exchange != null && testId.equals(exchange.testId)) {
+                exchange.appendTo(report);
+            }
+        }
+        if (report.length() > 0) {
+            System.err.print("Last HTTP exchanges of " + testId + ":\n" + report);
+        }
+    }
+
+    private class Exchange {
+        private final HttpExchangeEvent event = new HttpExchangeEvent();
+        private final String method;
+        private final String uri;
+        private final Object requestBody;
+        private final String testId;
+        private final String thread;
+        private final long startedAt = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private long nanos;
+        private int status;
+        private byte[] responseBody;
+
+        // the test id and thread name are those of the caller, an async call completes on another thread
+        Exchange(ApiRequest request) {
+            TestContext test = request.getTestContext();
+            this.method = request.getMethod();
+            this.uri = request.getUri();
+            this.requestBody = request.getBody();
+            this.testId = test == null ? null : test.getTestId();
+            this.thread = request.getThread();
+            event.begin();
+        }
+
+        void complete(Response Response) {
+            nanos = System.nanoTime() - startNanos;
+            if (Response != null) {
+                status = Response.statusCode();
+                responseBody = Response.asByteArray();
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = method;
+                event.path = PathTemplate.of(uri);
+                event.status = status;
+                event.requestBytes = MetricsFilter.bodyLength(requestBody);
+                event.responseBytes = responseBody == null ? 0 : responseBody.length;
+                event.testId = testId;
+                event.thread = thread;
+                event.commit();
+            }
+            ring.set((int) (written.getAndIncrement() % ring.length()), this);
+        }
+
+        private void appendTo(StringBuilder report) {
+            report.append("  ").append(LocalTime.ofInstant(Instant.ofEpochMilli(startedAt), ZoneId.systemDefault()))
+                    .append(" [").append(thread).append("] ").append(method).append(' ').append(uri)
+                    .append(" -> ").append(status == 0 ? "no response" : String.valueOf(status))
+                    .append(" in ").append(TimeUnit.NANOSECONDS.toMillis(nanos)).append(" ms\n");
+            if (requestBody instanceof String || requestBody instanceof byte[]) {
+                report.append("    > ").append(abbreviate(requestBody instanceof String
+                        ? (String) requestBody : new String((byte[]) requestBody, StandardCharsets.UTF_8))).append('\n');
+            }
+            if (responseBody != null && responseBody.length > 0) {
+                report.append("    < ").append(abbreviate(new String(responseBody, StandardCharsets.UTF_8))).append('\n');
+            }
+        }
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() <= MAX_PRINTED_BODY ? text
+                : text.substring(0, MAX_PRINTED_BODY) + "... (" + text.length() + " chars)";
+    }
+}
@@ -0,0 +1,13 @@
+package lib;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Sends the test's ApiClient requests through a FaultProxy running the named profile from fault-profiles.properties
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface FaultProfile {
+    String value();
+}
@@ -0,0 +1,308 @@
+package lib;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// An HTTP proxy in front of the API that injects faults per endpoint, as described by a profile in
+// fault-profiles.properties (or -Dfault.profiles=<file>): "<profile>.<METHOD> <path template>.<fault>=<value>",
+// with "*" in place of the endpoint for every request the profile has no line for. Faults:
+//   delay=fixed:<ms> | uniform:<min ms>-<max ms> | exponential:<mean ms> | lognormal:<median ms>,<sigma>
+//   bandwidth=<bytes per second>, applied to the request and the response body
+//   reset=<probability> the connection is dropped without a response
+//   errorRate=<probability> a burst of errorBurst (default 1) errorStatus (default 503) responses starts
+//   retryAfter=<seconds> sent as Retry-After with every injected error
+public class FaultProxy implements AutoCloseable {
+    private static final Properties PROFILES = load(System.getProperty("fault.profiles", "fault-profiles.properties"));
+    private static final ConcurrentHashMap<String, FaultProxy> RUNNING = new ConcurrentHashMap<>();
+    private static final String ANY_ENDPOINT = "*";
+    // set by the proxy or by the client, or not allowed by java.net.http
+    private static final Set<String> SKIPPED_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "content-length", "expect", "host", "keep-alive", "proxy-connection", "te", "trailer",
+            "transfer-encoding", "upgrade"));
+    private static final long PACING_INTERVAL_MILLIS = 50;
+
+    private final String target;
+    private final Map<String, Faults> faults;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HttpClient client;
+
+    private FaultProxy(String target, Map<String, Faults> faults) throws IOException {
+        this.target = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+        this.faults = faults;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(ApiClient.CONNECT_TIMEOUT_MS))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.server = LocalHttpServer.create(0);
+        this.executor = Threads.newPerTaskExecutor("fault-proxy");
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public static FaultProxy start(String target, String profile) {
+        try {
+            return new FaultProxy(target, parse(profile));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start fault proxy for profile " + profile, e);
+        }
+    }
+
+    // one proxy per profile in front of ApiClient's target, shared by every test that picks the profile
+    public static FaultProxy forProfile(String profile) {
+        return RUNNING.computeIfAbsent(profile, name -> start(ApiClient.getTargetBaseUrl(), name));
+    }
+
+    // the server behind baseUrl, baseUrl itself unless it is one of the profile proxies
+    public static String targetOf(String baseUrl) {
+        for (FaultProxy proxy : RUNNING.values()) {
+            if (proxy.getBaseUrl().equals(baseUrl)) {
+                return proxy.target;
+            }
+        }
+        return baseUrl;
+    }
+
+    public static void closeAll() {
+        for (FaultProxy proxy : RUNNING.values()) {
+            proxy.close();
+        }
+        RUNNING.clear();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            URI uri = exchange.getRequestURI();
+            Faults endpoint = faults.getOrDefault(method + " " + PathTemplate.of(uri.getPath()), faults.get(ANY_ENDPOINT));
+            byte[] requestBody = readAll(exchange.getRequestBody());
+
+            if (endpoint != null) {
+                sleep(endpoint.delay.getAsLong() + endpoint.transferMillis(requestBody.length));
+                if (endpoint.reset()) {
+                    // closing an exchange that sent no headers drops the connection, the client sees no response at all
+                    return;
+                }
+                int status = endpoint.error();
+                if (status != 0) {
+                    byte[] body = ("Injected " + status + " from fault profile").getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+                    if (endpoint.retryAfter != null) {
+                        exchange.getResponseHeaders().set("Retry-After", endpoint.retryAfter);
+                    }
+                    exchange.sendResponseHeaders(status, body.length);
+                    try (OutputStream output = exchange.getResponseBody()) {
+                        output.write(body);
+                    }
+                    return;
+                }
+            }
+
+            HttpResponse<byte[]> response = forward(exchange, method, uri, requestBody);
+            for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+                if (!SKIPPED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))
+                        && !header.getKey().startsWith(":")) {
+                    exchange.getResponseHeaders().put(header.getKey(), header.getValue());
+                }
+            }
+            byte[] body = response.body();
+            exchange.sendResponseHeaders(response.statusCode(), body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream output = exchange.getResponseBody()) {
+                    write(output, body, endpoint == null ? 0 : endpoint.bandwidth);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Fault proxy stopped", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private HttpResponse<byte[]> forward(HttpExchange exchange, String method, URI uri, byte[] requestBody)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(target + uri.getRawPath()
+                        + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery())))
+                .timeout(Duration.ofMillis(ApiClient.READ_TIMEOUT_MS))
+                .method(method, requestBody.length == 0
+                        ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(requestBody));
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            if (!SKIPPED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                for (String value : header.getValue()) {
+                    request.header(header.getKey(), value);
+                }
+            }
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static void write(OutputStream output, byte[] body, long bytesPerSecond) throws IOException, InterruptedException {
+        if (bytesPerSecond <= 0) {
+            output.write(body);
+            return;
+        }
+        // a slice every 50 ms keeps the rate even without a sleep per byte
+        int slice = (int) Math.max(1, bytesPerSecond * PACING_INTERVAL_MILLIS / 1000);
+        for (int offset = 0; offset < body.length; offset += slice) {
+            output.write(body, offset, Math.min(slice, body.length - offset));
+            output.flush();
+            sleep(PACING_INTERVAL_MILLIS);
+        }
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        try (InputStream body = input) {
+            return body.readAllBytes();
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        }
+    }
+
+    private static Map<String, Faults> parse(String profile) {
+        String prefix = profile + ".";
+        Map<String, Map<String, String>> byEndpoint = new HashMap<>();
+        for (String key : PROFILES.stringPropertyNames()) {
+            int fault = key.lastIndexOf('.');
+            if (key.startsWith(prefix) && fault > prefix.length()) {
+                byEndpoint.computeIfAbsent(key.substring(prefix.length(), fault), endpoint -> new HashMap<>())
+                        .put(key.substring(fault + 1), PROFILES.getProperty(key).trim());
+            }
+        }
+        if (byEndpoint.isEmpty()) {
+            throw new IllegalArgumentException("Fault profile " + profile + " is not defined");
+        }
+        Map<String, Faults> faults = new HashMap<>();
+        byEndpoint.forEach((endpoint, settings) -> faults.put(endpoint, new Faults(settings)));
+        return faults;
+    }
+
+    private static Properties load(String location) {
+        Properties properties = new Properties();
+        try {
+            Path file = Paths.get(location);
+            if (Files.isRegularFile(file)) {
+                try (InputStream input = Files.newInputStream(file)) {
+                    properties.load(input);
+                }
+                return properties;
+            }
+            try (InputStream input = FaultProxy.class.getClassLoader().getResourceAsStream(location)) {
+                if (input != null) {
+                    properties.load(input);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read fault profiles from " + location, e);
+        }
+        return properties;
+    }
+
+    private static class Faults {
+        private final LongSupplier delay;
+        private final long bandwidth;
+        private final double resetRate;
+        private final double errorRate;
+        private final int errorBurst;
+        private final int errorStatus;
+        private final String retryAfter;
+        private int burstLeft;
+
+        Faults(Map<String, String> settings) {
+            this.delay = delay(settings.getOrDefault("delay", "fixed:0"));
+            this.bandwidth = Long.parseLong(settings.getOrDefault("bandwidth", "0"));
+            this.resetRate = Double.parseDouble(settings.getOrDefault("reset", "0"));
+            this.errorRate = Double.parseDouble(settings.getOrDefault("errorRate", "0"));
+            this.errorBurst = Integer.parseInt(settings.getOrDefault("errorBurst", "1"));
+            this.errorStatus = Integer.parseInt(settings.getOrDefault("errorStatus", "503"));
+            this.retryAfter = settings.get("retryAfter");
+        }
+
+        long transferMillis(long bytes) {
+            return bandwidth <= 0 ? 0 : bytes * 1000 / bandwidth;
+        }
+
+        boolean reset() {
+            return resetRate > 0 && ThreadLocalRandom.current().nextDouble() < resetRate;
+        }
+
+        // the status to answer with, 0 to pass the request on
+        synchronized int error() {
+            if (burstLeft > 0) {
+                burstLeft--;
+                return errorStatus;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                burstLeft = errorBurst - 1;
+                return errorStatus;
+            }
+            return 0;
+        }
+
+        private static LongSupplier delay(String spec) {
+            int colon = spec.indexOf(':');
+            String kind = colon < 0 ? spec : spec.substring(0, colon);
+            String[] args = colon < 0 ? new String[0] : spec.substring(colon + 1).split("[-,]");
+            switch (kind) {
+                case "fixed":
+                    long fixed = Long.parseLong(args[0]);
+                    return () -> fixed;
+                case "uniform":
+                    long min = Long.parseLong(args[0]);
+                    long max = Long.parseLong(args[1]);
+                    return () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+                case "exponential":
+                    double mean = Double.parseDouble(args[0]);
+                    return () -> Math.round(-mean * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+                case "lognormal":
+                    double median = Double.parseDouble(args[0]);
+                    double sigma = Double.parseDouble(args[1]);
+                    return () -> Math.round(median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+                default:
+                    throw new IllegalArgumentException("Unknown delay distribution " + spec);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// ApiClient's filters in order, walked the same way by RestAssured calls and by AsyncApiCoreRequests; the transport
+// at the end sends the request. A blocking call's transport returns a completed future, so the whole walk stays on
+// the caller's thread.
+public class FilterChain {
+    private final List<ApiFilter> filters;
+    private final int position;
+    private final Function<ApiRequest, CompletableFuture<Response>> transport;
+
+    public FilterChain(List<ApiFilter> filters, Function<ApiRequest, CompletableFuture<Response>> transport) {
+        this(filters, 0, transport);
+    }
+
+    private FilterChain(List<ApiFilter> filters, int position,
+                        Function<ApiRequest, CompletableFuture<Response>> transport) {
+        this.filters = filters;
+        this.position = position;
+        this.transport = transport;
+    }
+
+    public CompletableFuture<Response> proceed(ApiRequest request) {
+        try {
+            if (position == filters.size()) {
+                return transport.apply(request);
+            }
+            return filters.get(position).filter(request, new FilterChain(filters, position + 1, transport));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // the response of a blocking call, its failure thrown as it was raised
+    static Response await(CompletableFuture<Response> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
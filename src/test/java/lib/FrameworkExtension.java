@@ -0,0 +1,109 @@
+package lib;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.Optional;
+
+public class FrameworkExtension implements BeforeAllCallback, BeforeEachCallback, AfterTestExecutionCallback,
+        AfterEachCallback, ParameterResolver {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(FrameworkExtension.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        // the root store lives for the whole engine run, so this runs once before the first test class
+        // and the resource is closed after the last one
+        ExtensionContext.Store store = context.getRoot().getStore(NAMESPACE);
+        store.getOrComputeIfAbsent(ApiClient.class,
+                key -> (ExtensionContext.Store.CloseableResource) ApiClient::shutdown);
+        // their threads outlive the run otherwise, which only matters to a TestDaemon running the suite again
+        store.getOrComputeIfAbsent(AllureFilter.class,
+                key -> (ExtensionContext.Store.CloseableResource) AllureFilter.getInstance()::shutdown);
+        store.getOrComputeIfAbsent(SessionPool.class,
+                key -> (ExtensionContext.Store.CloseableResource) SessionPool.getInstance()::shutdown);
+        store.getOrComputeIfAbsent(FaultProxy.class,
+                key -> (ExtensionContext.Store.CloseableResource) FaultProxy::closeAll);
+        store.getOrComputeIfAbsent(CassetteFilter.class,
+                key -> (ExtensionContext.Store.CloseableResource) CassetteFilter.getInstance()::close);
+        store.getOrComputeIfAbsent(MetricsFilter.class,
+                key -> (ExtensionContext.Store.CloseableResource) MetricsFilter.getInstance()::writeReport);
+        // resources close in reverse order: the pool hands back its users before the registry reaps the rest
+        store.getOrComputeIfAbsent(UserRegistry.class,
+                key -> (ExtensionContext.Store.CloseableResource) UserRegistry.getInstance()::shutdown);
+        store.getOrComputeIfAbsent(UserPool.class, key -> {
+            UserPool userPool = UserPool.getInstance();
+            userPool.warmUp();
+            return (ExtensionContext.Store.CloseableResource) userPool::shutdown;
+        });
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        TestContext testContext = new TestContext(
+                context.getRequiredTestClass().getName() + "#" + context.getRequiredTestMethod().getName());
+        context.getStore(NAMESPACE).put(TestContext.class, testContext);
+        TestContext.bind(testContext);
+        AllureFilter.getInstance().testStarted(testContext);
+        Optional<FaultProfile> faultProfile = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), FaultProfile.class);
+        if (!faultProfile.isPresent()) {
+            faultProfile = AnnotationSupport.findAnnotation(context.getRequiredTestClass(), FaultProfile.class);
+        }
+        faultProfile.ifPresent(profile -> ApiClient.route(FaultProxy.forProfile(profile.value()).getBaseUrl()));
+        AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), LatencySeries.class)
+                .ifPresent(latencySeries -> checkSeriesAfterLastInvocation(context, testContext.getTestId(),
+                        latencySeries.percentile()));
+    }
+
+    // the parent of an invocation is its @ParameterizedTest or @RepeatedTest, closed once every invocation finished;
+    // the series is static, so a second run in the same JVM starts it over
+    private static void checkSeriesAfterLastInvocation(ExtensionContext context, String seriesName, double percentile) {
+        ExtensionContext parent = context.getParent().orElse(context);
+        parent.getStore(NAMESPACE).getOrComputeIfAbsent(LatencySeries.class.getName() + ":" + seriesName, key -> {
+            LatencyBudgets.getInstance().clearSeries(seriesName);
+            return (ExtensionContext.Store.CloseableResource) () -> {
+                try {
+                    if (!LatencyBudgets.getInstance().getSeries(seriesName).isEmpty()) {
+                        Assertions.assertSeriesWithinBudget(seriesName, percentile);
+                    }
+                } finally {
+                    LatencyBudgets.getInstance().clearSeries(seriesName);
+                }
+            };
+        });
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        boolean failed = context.getExecutionException().isPresent();
+        TestContext testContext = context.getStore(NAMESPACE).get(TestContext.class, TestContext.class);
+        AllureFilter.getInstance().testFinished(testContext, failed);
+        if (failed) {
+            ExchangeRecorder.getInstance().dump(testContext.getTestId());
+        }
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        String testId = context.getStore(NAMESPACE).get(TestContext.class, TestContext.class).getTestId();
+        UserPool.getInstance().abandonLeases(testId);
+        UserRegistry.getInstance().reap(testId);
+        TestContext.bind(null);
+        ApiClient.route(null);
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == TestContext.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return extensionContext.getStore(NAMESPACE).get(TestContext.class, TestContext.class);
+    }
+}
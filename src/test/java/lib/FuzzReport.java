@@ -0,0 +1,136 @@
+package lib;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class FuzzReport {
+    private static final int MAX_PRINTED_INPUT = 300;
+
+    private final List<Finding> findings;
+    private final long durationNanos;
+    private final long executions;
+    private final long usersLeft;
+
+    public FuzzReport(Collection<Finding> findings, long durationNanos, long executions, long usersLeft) {
+        this.findings = new ArrayList<>(findings);
+        this.findings.sort(Comparator.comparing(Finding::getTarget).thenComparing(Finding::getStatus)
+                .thenComparing(Finding::getSignature));
+        this.durationNanos = durationNanos;
+        this.executions = executions;
+        this.usersLeft = usersLeft;
+    }
+
+    public List<Finding> getFindings() {
+        return findings;
+    }
+
+    public List<Finding> getServerErrors() {
+        List<Finding> errors = new ArrayList<>();
+        for (Finding finding : findings) {
+            if (finding.isServerError()) {
+                errors.add(finding);
+            }
+        }
+        return errors;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    public double getExecutionsPerSecond() {
+        return executions / (durationNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    // registered by a mutated payload the fuzzer could not log in with to delete again
+    public long getUsersLeft() {
+        return usersLeft;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Fuzzed %d payloads (%.0f/s), %d distinct behaviours, %d users left behind%n",
+                executions, getExecutionsPerSecond(), findings.size(), usersLeft));
+        report.append(String.format("%-20s %6s %10s  %s%n", "target", "status", "count", "response"));
+        for (Finding finding : findings) {
+            report.append(String.format("%-20s %6s %10d  %s%n", finding.getTarget(),
+                    finding.getStatus() == 0 ? "-" : String.valueOf(finding.getStatus()), finding.getCount(),
+                    finding.getSignature()));
+        }
+        for (Finding finding : getServerErrors()) {
+            report.append(String.format("%n%s %s: %s%n  first input: %s%n  minimised:   %s%n", finding.getTarget(),
+                    finding.getStatus() == 0 ? "no response" : finding.getStatus(), finding.getSignature(),
+                    abbreviate(finding.getInput()), abbreviate(finding.getMinimisedInput())));
+        }
+        return report.toString();
+    }
+
+    private static String abbreviate(String text) {
+        if (text == null) {
+            return "(not minimised)";
+        }
+        return text.length() <= MAX_PRINTED_INPUT ? text
+                : text.substring(0, MAX_PRINTED_INPUT) + "... (" + text.length() + " chars)";
+    }
+
+    public static class Finding {
+        private final String target;
+        private final int status;
+        private final String signature;
+        private final String input;
+        private final LongAdder count = new LongAdder();
+        private volatile String minimisedInput;
+
+        Finding(String target, int status, String signature, String input) {
+            this.target = target;
+            this.status = status;
+            this.signature = signature;
+            this.input = input;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        // 0 when no response arrived
+        public int getStatus() {
+            return status;
+        }
+
+        // the response body with echoed input values and numbers blanked out
+        public String getSignature() {
+            return signature;
+        }
+
+        // the first payload that produced this behaviour
+        public String getInput() {
+            return input;
+        }
+
+        // the smallest change to a valid payload found that still produces it
+        public String getMinimisedInput() {
+            return minimisedInput;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public boolean isServerError() {
+            return status == 0 || status >= 500;
+        }
+
+        void increment() {
+            count.increment();
+        }
+
+        void setMinimisedInput(String minimisedInput) {
+            this.minimisedInput = minimisedInput;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package lib;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// the event's duration is the latency of the exchange
+@Name("lib.HttpExchange")
+@Label("HTTP Exchange")
+@Category({"API Tests", "HTTP"})
+@Description("A request made through ApiClient or AsyncApiCoreRequests and its response")
+@StackTrace(false)
+class HttpExchangeEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Path Template")
+    String path;
+
+    @Label("Status")
+    @Description("0 when no response arrived")
+    int status;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Test")
+    String testId;
+
+    @Label("Caller Thread")
+    String thread;
+}
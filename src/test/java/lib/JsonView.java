@@ -0,0 +1,126 @@
+package lib;
+
+import io.restassured.path.json.JsonPath;
+import io.restassured.path.json.exception.JsonPathException;
+import io.restassured.response.Response;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+// The top-level fields of a JSON object body, parsed once by RestAssured's JsonPath; names are taken as they are,
+// a nested field is looked up by its dotted path ("a.b") only through getPath
+public class JsonView {
+    // one cache per thread, a response is checked by the thread that received it nearly always and the parallel
+    // suite shares no lock; keyed by response identity, entries go away together with the response
+    private static final ThreadLocal<Map<Response, JsonView>> VIEWS = ThreadLocal.withInitial(WeakHashMap::new);
+    // JsonPath recurses once per level, far deeper than any API response, shallow enough for any request body
+    private static final int MAX_DEPTH = 512;
+    private static final JsonView NOT_AN_OBJECT = new JsonView(false, Collections.emptyMap());
+
+    private final boolean object;
+    private final Map<String, Object> fields;
+
+    private JsonView(boolean object, Map<String, Object> fields) {
+        this.object = object;
+        this.fields = fields;
+    }
+
+    public static JsonView of(Response Response) {
+        Map<Response, JsonView> views = VIEWS.get();
+        JsonView view = views.get(Response);
+        if (view == null) {
+            view = create(Response.asString(), Response::jsonPath);
+            views.put(Response, view);
+        }
+        return view;
+    }
+
+    public static JsonView parse(String body) {
+        return create(body, () -> new JsonPath(body));
+    }
+
+    private static JsonView create(String body, Supplier<JsonPath> jsonPath) {
+        if (!isShallowObject(body)) {
+            return NOT_AN_OBJECT;
+        }
+        try {
+            return new JsonView(true, jsonPath.get().getMap("$"));
+        } catch (JsonPathException | IllegalArgumentException e) {
+            return NOT_AN_OBJECT;
+        }
+    }
+
+    public boolean isObject() {
+        return object;
+    }
+
+    public boolean has(String name) {
+        return fields.containsKey(name);
+    }
+
+    public Object get(String name) {
+        return fields.get(name);
+    }
+
+    public String getString(String name) {
+        Object value = get(name);
+        return value == null ? null : String.valueOf(value);
+    }
+
+    // null when a step of the path is missing or not an object
+    public Object getPath(String path) {
+        Object value = fields;
+        for (String name : path.split("\\.", -1)) {
+            if (!(value instanceof Map)) {
+                return null;
+            }
+            value = ((Map<?, ?>) value).get(name);
+        }
+        return value;
+    }
+
+    public int getInt(String name) {
+        Object value = get(name);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("JSON field " + name + " is null");
+        }
+        return Integer.parseInt(value.toString());
+    }
+
+    // JsonPath hands back whatever the root is and overflows the stack on deep nesting, both are checked first
+    private static boolean isShallowObject(String body) {
+        int start = 0;
+        while (start < body.length() && Character.isWhitespace(body.charAt(start))) {
+            start++;
+        }
+        if (start == body.length() || body.charAt(start) != '{') {
+            return false;
+        }
+        int depth = 0;
+        boolean inString = false;
+        for (int i = start; i < body.length(); i++) {
+            char current = body.charAt(i);
+            if (inString) {
+                if (current == '\\') {
+                    i++;
+                } else if (current == '"') {
+                    inString = false;
+                }
+            } else if (current == '"') {
+                inString = true;
+            } else if (current == '{' || current == '[') {
+                if (++depth > MAX_DEPTH) {
+                    return false;
+                }
+            } else if (current == '}' || current == ']') {
+                depth--;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+// Remembers which endpoint answered each response and how long it took, and knows the time budget of every endpoint.
+// Budgets are read from latency-budgets.properties (or -Dlatency.budgets=<file>) as "<METHOD> <path template>.max"
+// and ".p<percentile>" in milliseconds, falling back to "default.*"; -Dlatency.budgets.scale stretches all of them.
+public class LatencyBudgets implements ApiFilter {
+    private static final LatencyBudgets INSTANCE = new LatencyBudgets(
+            load(System.getProperty("latency.budgets", "latency-budgets.properties")),
+            Double.parseDouble(System.getProperty("latency.budgets.scale", "1")));
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final Properties budgets;
+    private final double scale;
+    private final Map<Response, Call> calls = Collections.synchronizedMap(new WeakHashMap<>());
+    private final ConcurrentHashMap<String, ConcurrentLinkedQueue<Call>> series = new ConcurrentHashMap<>();
+
+    public LatencyBudgets(Properties budgets, double scale) {
+        this.budgets = budgets;
+        this.scale = scale;
+    }
+
+    public static LatencyBudgets getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public CompletableFuture<Response> filter(ApiRequest request, FilterChain chain) {
+        String method = request.getMethod();
+        String uri = request.getUri();
+        long startedAt = System.nanoTime();
+        return chain.proceed(request).thenApply(response -> {
+            long millis = response.time() >= 0 ? response.time()
+                    : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            calls.put(response, new Call(method + " " + PathTemplate.of(uri), method + " " + uri, millis));
+            return response;
+        });
+    }
+
+    public Call callOf(Response Response) {
+        Call call = calls.get(Response);
+        return call != null ? call : new Call("unknown", "request outside ApiClient", Math.max(Response.time(), 0));
+    }
+
+    // collects calls across the invocations of a @ParameterizedTest or @RepeatedTest, see @LatencySeries
+    public void record(String seriesName, Response Response) {
+        series.computeIfAbsent(seriesName, name -> new ConcurrentLinkedQueue<>()).add(callOf(Response));
+    }
+
+    // into the series of the running test method
+    public void record(Response Response) {
+        record(TestContext.current().getTestId(), Response);
+    }
+
+    public void clearSeries(String seriesName) {
+        series.remove(seriesName);
+    }
+
+    public List<Call> getSeries(String seriesName) {
+        ConcurrentLinkedQueue<Call> recorded = series.get(seriesName);
+        return recorded == null ? Collections.emptyList() : new ArrayList<>(recorded);
+    }
+
+    public long getMaxMillis(String endpoint) {
+        return budget(endpoint, "max", UNLIMITED);
+    }
+
+    public long getPercentileMillis(String endpoint, double percentile) {
+        String name = percentile == Math.rint(percentile) ? "p" + (long) percentile : "p" + percentile;
+        return budget(endpoint, name, getMaxMillis(endpoint));
+    }
+
+    private long budget(String endpoint, String name, long fallback) {
+        String value = budgets.getProperty(endpoint + "." + name, budgets.getProperty("default." + name));
+        if (value == null) {
+            return fallback;
+        }
+        return Math.round(Long.parseLong(value.trim()) * scale);
+    }
+
+    private static Properties load(String location) {
+        Properties properties = new Properties();
+        try {
+            Path file = Paths.get(location);
+            if (Files.isRegularFile(file)) {
+                try (InputStream input = Files.newInputStream(file)) {
+                    properties.load(input);
+                }
+                return properties;
+            }
+            try (InputStream input = LatencyBudgets.class.getClassLoader().getResourceAsStream(location)) {
+                if (input != null) {
+                    properties.load(input);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read latency budgets from " + location, e);
+        }
+        return properties;
+    }
+
+    public static class Call {
+        private final String endpoint;
+        private final String request;
+        private final long millis;
+
+        Call(String endpoint, String request, long millis) {
+            this.endpoint = endpoint;
+            this.request = request;
+            this.millis = millis;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public String getRequest() {
+            return request;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return request + " took " + millis + " ms";
+        }
+    }
+}
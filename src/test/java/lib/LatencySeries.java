@@ -0,0 +1,14 @@
+package lib;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Holds the calls a @ParameterizedTest or @RepeatedTest records with LatencyBudgets.record(Response) to the
+// percentile budget once all of its invocations ran; invocations filtered out of the run record nothing to check
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface LatencySeries {
+    double percentile() default 95;
+}
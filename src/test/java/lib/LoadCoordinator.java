@@ -0,0 +1,244 @@
+package lib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Spreads a LoadScenario over several LoadWorker JVMs that talk to this coordinator over a plain socket. Each worker
+// gets its share of the concurrency and arrival rate and a common start time; their histograms and error counts are
+// merged into one LoadReport. Workers are spawned on this machine by default, with spawnWorkers(false) the coordinator
+// waits for workers started by hand: java -cp <test classpath> lib.LoadWorker <coordinator host>:<port>
+public class LoadCoordinator {
+    static final int MAGIC = 0x4C4F4144;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(Long.getLong("load.workers.timeout.seconds", 60));
+    // time for the plan to reach every worker before they start together
+    private static final long START_DELAY_MILLIS = 500;
+    private static final long REPORT_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final String baseUrl;
+    private final Class<? extends LoadScenario> scenario;
+    private int workers = 2;
+    private boolean spawnWorkers = true;
+    private InetAddress bindAddress = InetAddress.getLoopbackAddress();
+    private int port;
+    private int concurrency = 16;
+    private double arrivalRate;
+    private Duration duration = Duration.ofSeconds(10);
+
+    public LoadCoordinator(String baseUrl, Class<? extends LoadScenario> scenario) {
+        this.baseUrl = baseUrl;
+        this.scenario = scenario;
+    }
+
+    public LoadCoordinator workers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    public LoadCoordinator spawnWorkers(boolean spawnWorkers) {
+        this.spawnWorkers = spawnWorkers;
+        return this;
+    }
+
+    // the default is loopback on a free port, workers on other machines need a reachable address and a known port
+    public LoadCoordinator listenOn(InetAddress bindAddress, int port) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        return this;
+    }
+
+    // total over all workers, see LoadRunner.concurrency
+    public LoadCoordinator concurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    // total over all workers, see LoadRunner.arrivalRate
+    public LoadCoordinator arrivalRate(double arrivalRate) {
+        this.arrivalRate = arrivalRate;
+        return this;
+    }
+
+    public LoadCoordinator duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public LoadReport run() {
+        if (concurrency < workers) {
+            throw new IllegalArgumentException("Concurrency " + concurrency + " is lower than the " + workers
+                    + " workers, each of them runs at least one loop");
+        }
+        List<Process> processes = new ArrayList<>();
+        List<Socket> sockets = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(port, workers, bindAddress)) {
+            server.setSoTimeout((int) CONNECT_TIMEOUT.toMillis());
+            if (spawnWorkers) {
+                for (int i = 0; i < workers; i++) {
+                    processes.add(spawn(server.getLocalPort()));
+                }
+            } else {
+                System.out.println("Waiting for " + workers + " load workers on "
+                        + bindAddress.getHostAddress() + ":" + server.getLocalPort());
+            }
+            for (int i = 0; i < workers; i++) {
+                sockets.add(accept(server));
+            }
+
+            long startAtMillis = System.currentTimeMillis() + START_DELAY_MILLIS;
+            for (int i = 0; i < workers; i++) {
+                sendPlan(sockets.get(i), i, startAtMillis);
+            }
+            return collect(sockets);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Distributed load run failed", e);
+        } finally {
+            for (Socket socket : sockets) {
+                closeQuietly(socket);
+            }
+            for (Process process : processes) {
+                stop(process);
+            }
+        }
+    }
+
+    private Process spawn(int coordinatorPort) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        String jvmArgs = System.getProperty("load.worker.jvmArgs", "").trim();
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LoadWorker.class.getName());
+        command.add(bindAddress.getHostAddress() + ":" + coordinatorPort);
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .directory(new File(System.getProperty("user.dir")))
+                .start();
+    }
+
+    private Socket accept(ServerSocket server) throws IOException {
+        Socket socket;
+        try {
+            socket = server.accept();
+        } catch (SocketTimeoutException e) {
+            throw new IllegalStateException("Load workers did not connect within " + CONNECT_TIMEOUT.getSeconds() + " s", e);
+        }
+        socket.setSoTimeout((int) (START_DELAY_MILLIS + duration.toMillis() + REPORT_GRACE_MILLIS));
+        if (new DataInputStream(socket.getInputStream()).readInt() != MAGIC) {
+            closeQuietly(socket);
+            throw new IllegalStateException("Unexpected connection from " + socket.getRemoteSocketAddress());
+        }
+        return socket;
+    }
+
+    private void sendPlan(Socket socket, int worker, long startAtMillis) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.writeUTF(baseUrl);
+        out.writeUTF(scenario.getName());
+        // the first workers take the remainder
+        out.writeInt(concurrency / workers + (worker < concurrency % workers ? 1 : 0));
+        out.writeDouble(arrivalRate / workers);
+        out.writeLong(duration.toMillis());
+        out.writeLong(startAtMillis);
+        out.flush();
+    }
+
+    private LoadReport collect(List<Socket> sockets) throws IOException {
+        Map<String, LoadRunner.EndpointStats> endpoints = new HashMap<>();
+        long durationNanos = 0;
+        long iterations = 0;
+        long failures = 0;
+        long dropped = 0;
+        for (int i = 0; i < sockets.size(); i++) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(sockets.get(i).getInputStream()));
+            try {
+                long workerNanos = in.readLong();
+                if (workerNanos == LoadWorker.FAILED) {
+                    throw new IllegalStateException("Load worker " + i + " failed: " + in.readUTF());
+                }
+                durationNanos = Math.max(durationNanos, workerNanos);
+                iterations += in.readLong();
+                failures += in.readLong();
+                dropped += in.readLong();
+                int endpointCount = in.readInt();
+                for (int e = 0; e < endpointCount; e++) {
+                    String endpoint = in.readUTF();
+                    long errors = in.readLong();
+                    long sum = in.readLong();
+                    long max = in.readLong();
+                    long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+                    int used = in.readInt();
+                    for (int b = 0; b < used; b++) {
+                        counts[in.readInt()] = in.readLong();
+                    }
+                    endpoints.computeIfAbsent(endpoint, key -> new LoadRunner.EndpointStats()).add(counts, sum, max, errors);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Load worker " + i + " did not report its results", e);
+            }
+        }
+        return new LoadReport(endpoints, durationNanos, iterations, failures, dropped);
+    }
+
+    private static void stop(Process process) {
+        try {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // the worker is gone already
+        }
+    }
+
+    public static void main(String[] args) {
+        String baseUrl = System.getProperty("load.baseUrl");
+        UserServiceStub stub = baseUrl == null ? UserServiceStub.start() : null;
+        try {
+            LoadReport report = new LoadCoordinator(stub != null ? stub.getBaseUrl() : baseUrl, UserLifecycleScenario.class)
+                    .workers(Integer.getInteger("load.workers", 2))
+                    .spawnWorkers(Boolean.parseBoolean(System.getProperty("load.workers.spawn", "true")))
+                    .listenOn(InetAddress.getByName(System.getProperty("load.coordinator.host", "127.0.0.1")),
+                            Integer.getInteger("load.coordinator.port", 0))
+                    .concurrency(Integer.getInteger("load.concurrency", 64))
+                    .arrivalRate(Double.parseDouble(System.getProperty("load.rate", "0")))
+                    .duration(Duration.ofSeconds(Long.getLong("load.duration.seconds", 30)))
+                    .run();
+            System.out.println(report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+}
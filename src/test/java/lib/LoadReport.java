@@ -0,0 +1,69 @@
+package lib;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+public class LoadReport {
+    private final Map<String, LoadRunner.EndpointStats> endpoints;
+    private final long durationNanos;
+    private final long iterations;
+    private final long failures;
+    private final long dropped;
+
+    public LoadReport(Map<String, LoadRunner.EndpointStats> endpoints, long durationNanos,
+                      long iterations, long failures, long dropped) {
+        this.endpoints = Collections.unmodifiableMap(new TreeMap<>(endpoints));
+        this.durationNanos = durationNanos;
+        this.iterations = iterations;
+        this.failures = failures;
+        this.dropped = dropped;
+    }
+
+    public Map<String, LoadRunner.EndpointStats> getEndpoints() {
+        return endpoints;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public double getThroughput(String endpoint) {
+        LoadRunner.EndpointStats stats = endpoints.get(endpoint);
+        return stats == null ? 0 : stats.getLatencyMicros().getCount() / seconds();
+    }
+
+    private double seconds() {
+        return durationNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Duration %.1f s, iterations %d (%.1f/s), failed %d, dropped %d%n",
+                seconds(), iterations, iterations / seconds(), failures, dropped));
+        report.append(String.format("%-28s %10s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, LoadRunner.EndpointStats> entry : endpoints.entrySet()) {
+            LatencyHistogram latency = entry.getValue().getLatencyMicros();
+            report.append(String.format("%-28s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), latency.getCount(), latency.getCount() / seconds(), entry.getValue().getErrors(),
+                    latency.getPercentile(50) / 1000.0, latency.getPercentile(95) / 1000.0,
+                    latency.getPercentile(99) / 1000.0, latency.getMax() / 1000.0));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package lib;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadRunner {
+    private final String baseUrl;
+    private final LoadScenario scenario;
+    private final ConcurrentHashMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final ApiCoreRequests apiCoreRequests = ApiCoreRequests.withoutApiFilters(new RecordingFilter());
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private int concurrency = 16;
+    private double arrivalRate;
+    private Duration duration = Duration.ofSeconds(10);
+
+    public LoadRunner(String baseUrl, LoadScenario scenario) {
+        this.baseUrl = baseUrl;
+        this.scenario = scenario;
+    }
+
+    // closed model: this many scenario loops run back to back; open model: upper bound of in-flight iterations
+    public LoadRunner concurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    // scenario iterations started per second, 0 switches to the closed model
+    public LoadRunner arrivalRate(double arrivalRate) {
+        this.arrivalRate = arrivalRate;
+        return this;
+    }
+
+    public LoadRunner duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    // thousands of requests from inside one test, none of them is worth an attachment
+    public LoadReport run() {
+        return AllureFilter.getInstance().withMode(AllureFilter.Mode.OFF, this::runLoad);
+    }
+
+    private LoadReport runLoad() {
+        long start = System.nanoTime();
+        if (arrivalRate > 0) {
+            runOpen(start + duration.toNanos());
+        } else {
+            runClosed(start + duration.toNanos());
+        }
+        return new LoadReport(endpoints, System.nanoTime() - start,
+                iterations.sum(), failures.sum(), dropped.sum());
+    }
+
+    private void runClosed(long deadline) {
+        ExecutorService executor = Threads.newPerTaskExecutor("load-worker");
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    iteration();
+                }
+            });
+        }
+        awaitTermination(executor);
+    }
+
+    private void runOpen(long deadline) {
+        ExecutorService executor = Threads.newPerTaskExecutor("load-worker");
+        Semaphore inFlight = new Semaphore(concurrency);
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / arrivalRate);
+        long next = System.nanoTime();
+        while (next < deadline) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.tryAcquire()) {
+                executor.execute(() -> {
+                    try {
+                        iteration();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } else {
+                dropped.increment();
+            }
+            next += interval;
+        }
+        awaitTermination(executor);
+    }
+
+    private void iteration() {
+        try {
+            scenario.run(apiCoreRequests, baseUrl);
+        } catch (RuntimeException | AssertionError e) {
+            failures.increment();
+        } finally {
+            iterations.increment();
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) {
+        String baseUrl = System.getProperty("load.baseUrl");
+        UserServiceStub stub = baseUrl == null ? UserServiceStub.start() : null;
+        try {
+            LoadReport report = new LoadRunner(stub != null ? stub.getBaseUrl() : baseUrl, new UserLifecycleScenario())
+                    .concurrency(Integer.getInteger("load.concurrency", 64))
+                    .arrivalRate(Double.parseDouble(System.getProperty("load.rate", "0")))
+                    .duration(Duration.ofSeconds(Long.getLong("load.duration.seconds", 30)))
+                    .run();
+            System.out.println(report);
+        } finally {
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    public static class EndpointStats {
+        private final LatencyHistogram latencyMicros = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        public LatencyHistogram getLatencyMicros() {
+            return latencyMicros;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        void add(long[] latencyCounts, long latencySum, long latencyMax, long errorCount) {
+            latencyMicros.add(latencyCounts, latencySum, latencyMax);
+            errors.add(errorCount);
+        }
+    }
+
+    private class RecordingFilter implements Filter {
+        @Override
+        public Response filter(FilterableRequestSpecification requestSpec,
+                               FilterableResponseSpecification responseSpec, FilterContext ctx) {
+            EndpointStats stats = endpoints.computeIfAbsent(
+                    requestSpec.getMethod() + " " + PathTemplate.of(requestSpec.getURI()), key -> new EndpointStats());
+            long start = System.nanoTime();
+            try {
+                Response response = ctx.next(requestSpec, responseSpec);
+                if (response.statusCode() >= 400) {
+                    stats.errors.increment();
+                }
+                return response;
+            } catch (RuntimeException e) {
+                stats.errors.increment();
+                throw e;
+            } finally {
+                stats.latencyMicros.record((System.nanoTime() - start) / 1000);
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package lib;
+
+public interface LoadScenario {
+    void run(ApiCoreRequests apiCoreRequests, String baseUrl);
+}
@@ -0,0 +1,114 @@
+package lib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// One JVM of a distributed load run: connects to a LoadCoordinator, runs its share of the load from the common start
+// time and sends back the raw histogram buckets, so the coordinator's percentiles are exact over all workers.
+public class LoadWorker {
+    // sent instead of a report's duration, followed by the reason, so the coordinator does not wait for the timeout
+    static final long FAILED = -1;
+    private static final int MAX_REASON_LENGTH = 1000;
+
+    public static void main(String[] args) {
+        if (args.length != 1 || args[0].lastIndexOf(':') < 0) {
+            System.err.println("Usage: java -cp <test classpath> lib.LoadWorker <coordinator host>:<port>");
+            System.exit(2);
+        }
+        int separator = args[0].lastIndexOf(':');
+        run(args[0].substring(0, separator), Integer.parseInt(args[0].substring(separator + 1)));
+        // RestAssured's pooled connections are not daemon threads
+        System.exit(0);
+    }
+
+    public static void run(String host, int port) {
+        try (Socket socket = new Socket(host, port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            out.writeInt(LoadCoordinator.MAGIC);
+            out.flush();
+
+            String baseUrl = in.readUTF();
+            String scenarioClass = in.readUTF();
+            int concurrency = in.readInt();
+            double arrivalRate = in.readDouble();
+            long durationMillis = in.readLong();
+            long startAtMillis = in.readLong();
+
+            try {
+                LoadRunner runner = new LoadRunner(baseUrl, newScenario(scenarioClass))
+                        .concurrency(concurrency)
+                        .arrivalRate(arrivalRate)
+                        .duration(Duration.ofMillis(durationMillis));
+                // RestAssured is loaded before the start, class loading must not show up in the first latencies
+                ApiClient.bare();
+                long wait = startAtMillis - System.currentTimeMillis();
+                if (wait > 0) {
+                    TimeUnit.MILLISECONDS.sleep(wait);
+                }
+                writeReport(out, runner.run());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writeFailure(out, "interrupted before the start");
+            } catch (RuntimeException e) {
+                writeFailure(out, e.toString());
+                throw e;
+            } finally {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lost the load coordinator at " + host + ":" + port, e);
+        }
+    }
+
+    private static void writeFailure(DataOutputStream out, String reason) throws IOException {
+        out.writeLong(FAILED);
+        out.writeUTF(reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason);
+    }
+
+    private static LoadScenario newScenario(String className) {
+        try {
+            return Class.forName(className).asSubclass(LoadScenario.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Could not create load scenario " + className, e);
+        }
+    }
+
+    private static void writeReport(DataOutputStream out, LoadReport report) throws IOException {
+        out.writeLong(report.getDurationNanos());
+        out.writeLong(report.getIterations());
+        out.writeLong(report.getFailures());
+        out.writeLong(report.getDropped());
+        out.writeInt(report.getEndpoints().size());
+        for (Map.Entry<String, LoadRunner.EndpointStats> entry : report.getEndpoints().entrySet()) {
+            LatencyHistogram latency = entry.getValue().getLatencyMicros();
+            long[] counts = latency.getCounts();
+            int used = 0;
+            for (long count : counts) {
+                if (count != 0) {
+                    used++;
+                }
+            }
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue().getErrors());
+            out.writeLong(latency.getSum());
+            out.writeLong(latency.getMax());
+            // only the buckets that were hit, a few dozen out of ~2000
+            out.writeInt(used);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    out.writeInt(i);
+                    out.writeLong(counts[i]);
+                }
+            }
+        }
+    }
+}
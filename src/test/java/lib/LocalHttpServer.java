@@ -0,0 +1,23 @@
+package lib;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+// The loopback HttpServer behind UserServiceStub and FaultProxy. The JDK reads sun.net.httpserver.nodelay once, when
+// the first server of the JVM starts, so it is set here where every one of them is created.
+class LocalHttpServer {
+
+    static {
+        // without it every keep-alive exchange waits on delayed ACKs, ~40 ms on loopback
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    static HttpServer create(int port) throws IOException {
+        return HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    }
+}
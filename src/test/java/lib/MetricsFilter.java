@@ -0,0 +1,239 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MetricsFilter implements ApiFilter {
+    private static final MetricsFilter INSTANCE = new MetricsFilter();
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    // the endpoints seen per method; a method has a handful, a URI is matched against each of them, so recording a
+    // call allocates nothing unless it is the first call of its endpoint
+    private final ConcurrentHashMap<String, EndpointMetrics[]> byMethod = new ConcurrentHashMap<>();
+
+    public static MetricsFilter getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public CompletableFuture<Response> filter(ApiRequest request, FilterChain chain) {
+        EndpointMetrics metrics = endpoint(request.getMethod(), request.getUri());
+        long bytesOut = bodyLength(request.getBody());
+        long startedAt = System.nanoTime();
+        CompletableFuture<Response> response = chain.proceed(request);
+        // a blocking call has its response by now, recorded right here
+        if (response.isDone()) {
+            metrics.record(startedAt, bytesOut, response.isCompletedExceptionally() ? null : response.getNow(null));
+            return response;
+        }
+        return response.whenComplete((received, failure) -> metrics.record(startedAt, bytesOut, received));
+    }
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    public void writeReport() {
+        writeReport(Paths.get(System.getProperty("metrics.dir", "target/metrics")));
+    }
+
+    public void writeReport(Path dir) {
+        Map<String, EndpointMetrics> snapshot = getEndpoints();
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("api-metrics.json"), toJson(snapshot).getBytes(StandardCharsets.UTF_8));
+            Files.write(dir.resolve("api-metrics.prom"), toPrometheus(snapshot).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write API metrics to " + dir, e);
+        }
+    }
+
+    private EndpointMetrics endpoint(String method, String uri) {
+        EndpointMetrics[] known = byMethod.get(method);
+        if (known != null) {
+            for (EndpointMetrics metrics : known) {
+                if (PathTemplate.matches(metrics.path, uri)) {
+                    return metrics;
+                }
+            }
+        }
+        String path = PathTemplate.of(uri);
+        EndpointMetrics metrics = endpoints.computeIfAbsent(method + " " + path, key -> new EndpointMetrics(method, path));
+        byMethod.compute(method, (key, current) -> {
+            if (current == null) {
+                return new EndpointMetrics[] {metrics};
+            }
+            for (EndpointMetrics existing : current) {
+                if (existing == metrics) {
+                    return current;
+                }
+            }
+            EndpointMetrics[] added = Arrays.copyOf(current, current.length + 1);
+            added[current.length] = metrics;
+            return added;
+        });
+        return metrics;
+    }
+
+    static long bodyLength(Object body) {
+        if (body instanceof byte[]) {
+            return ((byte[]) body).length;
+        }
+        if (!(body instanceof String)) {
+            return 0;
+        }
+        String text = (String) body;
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static String toJson(Map<String, EndpointMetrics> snapshot) {
+        StringBuilder json = new StringBuilder("{\"endpoints\":[");
+        String separator = "";
+        for (EndpointMetrics metrics : snapshot.values()) {
+            LatencyHistogram latency = metrics.latencyMicros;
+            json.append(separator)
+                    .append("\n{\"method\":\"").append(metrics.method)
+                    .append("\",\"path\":\"").append(metrics.path)
+                    .append("\",\"count\":").append(latency.getCount())
+                    .append(",\"bytesIn\":").append(metrics.bytesIn.sum())
+                    .append(",\"bytesOut\":").append(metrics.bytesOut.sum())
+                    .append(",\"latencyMicros\":{\"mean\":").append(Math.round(latency.getMean()));
+            for (double percentile : PERCENTILES) {
+                json.append(",\"p").append((int) percentile).append("\":").append(latency.getPercentile(percentile));
+            }
+            json.append(",\"max\":").append(latency.getMax()).append("},\"status\":{");
+            String statusSeparator = "";
+            for (Map.Entry<String, Long> status : metrics.getStatusCounts().entrySet()) {
+                json.append(statusSeparator).append('"').append(status.getKey()).append("\":").append(status.getValue());
+                statusSeparator = ",";
+            }
+            json.append("}}");
+            separator = ",";
+        }
+        return json.append("\n]}\n").toString();
+    }
+
+    private static String toPrometheus(Map<String, EndpointMetrics> snapshot) {
+        StringBuilder latency = new StringBuilder("# TYPE api_request_duration_seconds summary\n");
+        StringBuilder responses = new StringBuilder("# TYPE api_responses_total counter\n");
+        StringBuilder bytesIn = new StringBuilder("# TYPE api_response_bytes_total counter\n");
+        StringBuilder bytesOut = new StringBuilder("# TYPE api_request_bytes_total counter\n");
+        for (EndpointMetrics metrics : snapshot.values()) {
+            String labels = "method=\"" + metrics.method + "\",path=\"" + metrics.path + "\"";
+            LatencyHistogram histogram = metrics.latencyMicros;
+            for (double percentile : PERCENTILES) {
+                latency.append("api_request_duration_seconds{").append(labels)
+                        .append(",quantile=\"").append(percentile / 100).append("\"} ")
+                        .append(seconds(histogram.getPercentile(percentile))).append('\n');
+            }
+            latency.append("api_request_duration_seconds_sum{").append(labels).append("} ")
+                    .append(seconds(histogram.getSum())).append('\n');
+            latency.append("api_request_duration_seconds_count{").append(labels).append("} ")
+                    .append(histogram.getCount()).append('\n');
+            for (Map.Entry<String, Long> status : metrics.getStatusCounts().entrySet()) {
+                responses.append("api_responses_total{").append(labels)
+                        .append(",status=\"").append(status.getKey()).append("\"} ")
+                        .append(status.getValue()).append('\n');
+            }
+            bytesIn.append("api_response_bytes_total{").append(labels).append("} ")
+                    .append(metrics.bytesIn.sum()).append('\n');
+            bytesOut.append("api_request_bytes_total{").append(labels).append("} ")
+                    .append(metrics.bytesOut.sum()).append('\n');
+        }
+        return latency.append(responses).append(bytesIn).append(bytesOut).toString();
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+
+    public static class EndpointMetrics {
+        private final String method;
+        private final String path;
+        private final LatencyHistogram latencyMicros = new LatencyHistogram();
+        // indexed by status code, slot 0 counts calls that failed without a response
+        private final AtomicLongArray statusCounts = new AtomicLongArray(600);
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+
+        EndpointMetrics(String method, String path) {
+            this.method = method;
+            this.path = path;
+        }
+
+        // a null response is a call that failed without one
+        private void record(long startedAt, long bytesOut, Response response) {
+            latencyMicros.record((System.nanoTime() - startedAt) / 1000);
+            this.bytesOut.add(bytesOut);
+            if (response == null) {
+                statusCounts.incrementAndGet(0);
+                return;
+            }
+            bytesIn.add(response.asByteArray().length);
+            statusCounts.incrementAndGet(Math.min(Math.max(response.statusCode(), 0), 599));
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public LatencyHistogram getLatencyMicros() {
+            return latencyMicros;
+        }
+
+        public Map<String, Long> getStatusCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            for (int status = 0; status < statusCounts.length(); status++) {
+                long count = statusCounts.get(status);
+                if (count != 0) {
+                    counts.put(status == 0 ? "error" : String.valueOf(status), count);
+                }
+            }
+            return counts;
+        }
+
+        public long getBytesIn() {
+            return bytesIn.sum();
+        }
+
+        public long getBytesOut() {
+            return bytesOut.sum();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package lib;
+
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.ArgumentsProvider;
+
+import java.util.stream.Stream;
+
+// Registration payloads with one name field empty, at the accepted length limits or just outside them, in every
+// character class, together with the status and the error (null for a 200) the API answers with
+public class NameBoundaryArgumentsProvider implements ArgumentsProvider {
+    private static final int MIN_LENGTH = 2;
+    private static final int MAX_LENGTH = 250;
+    private static final int[] LENGTHS = {0, MIN_LENGTH - 1, MIN_LENGTH, MAX_LENGTH, MAX_LENGTH + 1};
+    private static final String[] NAME_FIELDS = {"firstName", "lastName", "username"};
+
+    @Override
+    public Stream<? extends Arguments> provideArguments(ExtensionContext context) {
+        return Stream.of(NAME_FIELDS).flatMap(field -> DataGenerate.boundaryRegistrationData(LENGTHS, field)
+                .map(userData -> {
+                    String value = userData.get(field);
+                    boolean accepted = value.length() >= MIN_LENGTH && value.length() <= MAX_LENGTH;
+                    String expectedMessage = accepted ? null : "The value of '" + field + "' field is too "
+                            + (value.length() < MIN_LENGTH ? "short" : "long");
+                    String name = field + " of " + value.length() + " chars like '"
+                            + value.substring(0, Math.min(8, value.length())) + "'";
+                    return Arguments.of(Named.of(name, userData), accepted ? 200 : 400, expectedMessage);
+                }));
+    }
+}
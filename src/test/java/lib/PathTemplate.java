@@ -0,0 +1,88 @@
+package lib;
+
+public class PathTemplate {
+
+    public static String of(String url) {
+        int start = pathStart(url);
+        if (start < 0) {
+            return "/";
+        }
+        int end = pathEnd(url, start);
+
+        StringBuilder template = new StringBuilder(end - start + 4);
+        int segmentStart = start;
+        while (segmentStart < end) {
+            int segmentEnd = segmentEnd(url, segmentStart, end);
+            if (isNumeric(url, segmentStart + 1, segmentEnd)) {
+                template.append("/{id}");
+            } else {
+                template.append(url, segmentStart, segmentEnd);
+            }
+            segmentStart = segmentEnd;
+        }
+        return template.length() == 0 ? "/" : template.toString();
+    }
+
+    // the same as template.equals(of(url)), without building the template
+    public static boolean matches(String template, String url) {
+        int start = pathStart(url);
+        if (start < 0) {
+            return template.equals("/");
+        }
+        int end = pathEnd(url, start);
+
+        int position = 0;
+        int segmentStart = start;
+        while (segmentStart < end) {
+            int segmentEnd = segmentEnd(url, segmentStart, end);
+            if (isNumeric(url, segmentStart + 1, segmentEnd)) {
+                if (!template.startsWith("/{id}", position)) {
+                    return false;
+                }
+                position += 5;
+            } else {
+                if (!template.regionMatches(position, url, segmentStart, segmentEnd - segmentStart)) {
+                    return false;
+                }
+                position += segmentEnd - segmentStart;
+            }
+            segmentStart = segmentEnd;
+        }
+        return position == template.length();
+    }
+
+    private static int pathStart(String url) {
+        int start = url.indexOf("://");
+        return start < 0 ? 0 : url.indexOf('/', start + 3);
+    }
+
+    // before the query and any trailing slashes
+    private static int pathEnd(String url, int start) {
+        int end = url.length();
+        int query = url.indexOf('?', start);
+        if (query >= 0) {
+            end = query;
+        }
+        while (end - 1 > start && url.charAt(end - 1) == '/') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int segmentEnd(String url, int segmentStart, int end) {
+        int segmentEnd = url.indexOf('/', segmentStart + 1);
+        return segmentEnd < 0 || segmentEnd > end ? end : segmentEnd;
+    }
+
+    private static boolean isNumeric(String url, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (url.charAt(i) < '0' || url.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
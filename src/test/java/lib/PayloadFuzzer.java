@@ -0,0 +1,470 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Sends mutated registration and edit payloads concurrently (field drops, boundary and oversize values, unicode,
+// type confusion, extra fields, bodies that are not a JSON object) and groups the responses by status and body
+// signature. The first payload of every new behaviour is minimised in the background: mutations are undone one
+// field at a time and strings shortened for as long as the response keeps the same signature.
+public class PayloadFuzzer {
+    private static final String[] FIELDS = {"email", "password", "username", "firstName", "lastName"};
+    private static final String[] EXTRA_FIELDS = {"id", "user_id", "admin", "__proto__", "email ", "Email"};
+    private static final int[] BOUNDARY_LENGTHS = {0, 1, 2, 250, 251};
+    // generated once, a fresh 100k random string per mutation costs more than sending it
+    private static final String[] OVERSIZE_VALUES = {
+            DataGenerate.getRandomStringWithGivenSize(1_000), DataGenerate.getRandomStringWithGivenSize(10_000),
+            DataGenerate.getRandomStringWithGivenSize(100_000)};
+    private static final String[] UNICODE_VALUES = {
+            "\u043F\u043E\u043B\u044C\u0437\u043E\u0432\u0430\u0442\u0435\u043B\u044C", "\u7528\u6237\u540D",
+            "\uD83D\uDC69\u200D\uD83D\uDCBB\uD83D\uDC69\u200D\uD83D\uDCBB", "e\u0301e\u0301", "\u202Eevil", "a\u200Bb",
+            "nul\u0000byte", "\uD835\uDD4F".repeat(200), "\uFDFA", "\u216B"};
+    private static final Object[] CONFUSED_VALUES = {
+            0, -1, Long.MAX_VALUE, 1.5e308, true, false, null, Collections.emptyList(), Collections.singletonList("a"),
+            Collections.emptyMap(), Collections.singletonMap("a", "b"),
+            new RawJson("\"\\ud800\""), new RawJson("\"\\u0000\"")};
+    private static final String[] ODD_STRINGS = {
+            "", " ", "  learnqa  ", "\t\n", "' OR '1'='1", "<script>alert(1)</script>", "${jndi:ldap://x/a}", "%s%n%x",
+            "../../etc/passwd", "null", "undefined", "0"};
+    private static final String[] ODD_EMAILS = {
+            "a@", "@example.com", "a@@example.com", "a b@example.com", "a@b@example.com", "learnqa@example",
+            "x".repeat(300) + "@example.com", "LEARNQA@EXAMPLE.COM", "a@example.com\n"};
+    private static final RawJson[] RAW_BODIES = {
+            new RawJson(""), new RawJson("{"), new RawJson("[]"), new RawJson("null"), new RawJson("\"text\""),
+            new RawJson("{}"), new RawJson("{\"email\":"), new RawJson("{\"email\":\"a@b.c\",\"email\":\"d@e.f\"}"),
+            new RawJson("email=a%40b.c&password=1"), new RawJson("{\"email\":" + "[".repeat(5_000) + "}")};
+    private static final Object FRESH_EMAIL = new Object() {
+        @Override
+        public String toString() {
+            return "<fresh email>";
+        }
+    };
+    private static final Object DROP = new Object();
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final int MAX_SIGNATURE = 160;
+    private static final int MIN_ECHOED_INPUT = 8;
+    private static final int MAX_MINIMISATION_REQUESTS = 200;
+
+    private final String baseUrl;
+    private final AsyncApiCoreRequests asyncApiCoreRequests = new AsyncApiCoreRequests();
+    private final ConcurrentHashMap<String, FuzzReport.Finding> findings = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder usersLeft = new LongAdder();
+    private int concurrency = 64;
+    private Duration duration = Duration.ofSeconds(30);
+    private Session editor;
+    private String editUrl;
+
+    public PayloadFuzzer(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    // requests in flight
+    public PayloadFuzzer concurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    public PayloadFuzzer duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    // thousands of requests from inside one test, none of them is worth an attachment
+    public FuzzReport run() {
+        return AllureFilter.getInstance().withMode(AllureFilter.Mode.OFF, this::fuzz);
+    }
+
+    private FuzzReport fuzz() {
+        // edits go to a user of the fuzzer's own, never to one the tests rely on
+        editor = ScenarioSteps.registerAndLogin(new ApiCoreRequests(), baseUrl);
+        editUrl = ScenarioSteps.userUrl(baseUrl, editor.getUserId());
+        ExecutorService minimiser = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fuzz-minimiser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore inFlight = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        long fuzzingNanos = 0;
+        try {
+            while (System.nanoTime() < deadline) {
+                if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Target target = random.nextBoolean() ? Target.REGISTER : Target.EDIT;
+                Object payload = target == Target.REGISTER ? mutate(registration(), random, true)
+                        : mutate(edit(random), random, false);
+                execute(target, payload).whenComplete((completed, failure) -> {
+                    try {
+                        executions.increment();
+                        // a bug of the fuzzer's own, reported as a behaviour without a response rather than lost
+                        Outcome outcome = completed != null ? completed
+                                : new Outcome(0, "fuzzer failed: " + describe(failure), String.valueOf(payload));
+                        FuzzReport.Finding finding = new FuzzReport.Finding(target.endpoint, outcome.status,
+                                outcome.signature, outcome.json);
+                        FuzzReport.Finding known = findings.putIfAbsent(target.endpoint + ' ' + outcome.key(), finding);
+                        (known == null ? finding : known).increment();
+                        if (known == null && completed != null && payload instanceof Map) {
+                            minimiser.execute(() -> finding.setMinimisedInput(
+                                    minimise(target, asFields(payload), outcome.key())));
+                        }
+                    } finally {
+                        // whatever happened above, the minimiser is shut down once every permit is back
+                        inFlight.release();
+                    }
+                });
+            }
+            inFlight.acquire(concurrency);
+            // the rate leaves out the minimisation still queued, which runs one request at a time
+            fuzzingNanos = System.nanoTime() - start;
+            minimiser.shutdown();
+            minimiser.awaitTermination(5, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            minimiser.shutdownNow();
+            ScenarioSteps.delete(new ApiCoreRequests(), baseUrl, editor);
+        }
+        return new FuzzReport(findings.values(), fuzzingNanos > 0 ? fuzzingNanos : System.nanoTime() - start,
+                executions.sum(), usersLeft.sum());
+    }
+
+    private CompletableFuture<Outcome> execute(Target target, Object payload) {
+        Map<String, String> sent = new HashMap<>();
+        String json = toJson(payload, sent);
+        // sent again once without a response: a pooled connection the server has just closed fails the request on
+        // it, a payload that really takes the server down fails twice
+        CompletableFuture<Response> response = send(target, json)
+                .handle((received, failure) -> received != null ? CompletableFuture.completedFuture(received)
+                        : send(target, json))
+                .thenCompose(received -> received);
+        return response.handle((received, failure) -> {
+            if (received == null) {
+                return CompletableFuture.completedFuture(new Outcome(0, "no response: " + describe(failure), json));
+            }
+            Outcome outcome = new Outcome(received.statusCode(), signature(received.asString(), sent), json);
+            // the request keeps its slot until the user is gone again: cleanups that pile up outside the limit open
+            // more connections than the server keeps alive, and a connection it closes fails the next request on it
+            return target == Target.REGISTER && received.statusCode() == 200
+                    ? cleanUp(sent).thenApply(deleted -> outcome) : CompletableFuture.completedFuture(outcome);
+        }).thenCompose(outcome -> outcome);
+    }
+
+    private static String describe(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        return cause.getClass().getSimpleName();
+    }
+
+    private CompletableFuture<Response> send(Target target, String json) {
+        return target == Target.REGISTER
+                ? asyncApiCoreRequests.makePostRequest(baseUrl + "/api/user/", json)
+                : asyncApiCoreRequests.makePutRequestWithTokenAndCookie(editUrl, editor.getToken(), editor.getCookie(), json);
+    }
+
+    // a mutated payload the server accepted has created a user, logged in with what was sent it is deleted again
+    private CompletableFuture<Void> cleanUp(Map<String, String> sent) {
+        if (sent.get("email") == null || sent.get("password") == null) {
+            usersLeft.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        Map<String, String> authData = new HashMap<>();
+        authData.put("email", sent.get("email"));
+        authData.put("password", sent.get("password"));
+        return asyncApiCoreRequests.makePostRequest(baseUrl + "/api/user/login", authData)
+                .thenCompose(responseGetAuth -> {
+                    String token = responseGetAuth.getHeader("x-csrf-token");
+                    String cookie = responseGetAuth.getCookie("auth_sid");
+                    if (token == null || cookie == null) {
+                        throw new IllegalStateException("Login failed");
+                    }
+                    return asyncApiCoreRequests.makeDeleteRequest(
+                            ScenarioSteps.userUrl(baseUrl, JsonView.of(responseGetAuth).getInt("user_id")), token, cookie);
+                })
+                .handle((responseDelete, failure) -> {
+                    if (failure != null || responseDelete.statusCode() != 200) {
+                        usersLeft.increment();
+                    }
+                    return null;
+                });
+    }
+
+    private String minimise(Target target, Map<String, Object> failing, String key) {
+        Map<String, Object> baseline = target == Target.REGISTER ? registration() : new LinkedHashMap<>();
+        Map<String, Object> current = new LinkedHashMap<>(failing);
+        int budget = MAX_MINIMISATION_REQUESTS;
+
+        // undo every mutation that is not needed for the behaviour
+        Set<String> fields = new LinkedHashSet<>(current.keySet());
+        fields.addAll(baseline.keySet());
+        for (String field : fields) {
+            Map<String, Object> candidate = new LinkedHashMap<>(current);
+            if (baseline.containsKey(field)) {
+                candidate.put(field, baseline.get(field));
+            } else {
+                candidate.remove(field);
+            }
+            if (!candidate.equals(current) && budget-- > 0 && reproduces(target, candidate, key)) {
+                current = candidate;
+            }
+        }
+
+        // then shorten the strings that are left
+        for (String field : new ArrayList<>(current.keySet())) {
+            while (current.get(field) instanceof String && ((String) current.get(field)).length() > 1 && budget-- > 0) {
+                String value = (String) current.get(field);
+                Map<String, Object> candidate = new LinkedHashMap<>(current);
+                candidate.put(field, value.substring(0, value.length() / 2));
+                if (!reproduces(target, candidate, key)) {
+                    break;
+                }
+                current = candidate;
+            }
+        }
+        return toJson(current, new HashMap<>());
+    }
+
+    private boolean reproduces(Target target, Map<String, Object> payload, String key) {
+        return execute(target, payload).join().key().equals(key);
+    }
+
+    private static Map<String, Object> registration() {
+        Map<String, Object> payload = new LinkedHashMap<>(DataGenerate.getRegistrationData());
+        // a new address for every request, or the second send of the same payload would hit "already exists"
+        payload.put("email", FRESH_EMAIL);
+        return payload;
+    }
+
+    private static Map<String, Object> edit(ThreadLocalRandom random) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        String field = FIELDS[random.nextInt(FIELDS.length)];
+        payload.put(field, field.equals("email") ? FRESH_EMAIL : DataGenerate.getRegistrationData().get(field));
+        return payload;
+    }
+
+    private static Object mutate(Map<String, Object> payload, ThreadLocalRandom random, boolean registering) {
+        if (random.nextInt(20) == 0) {
+            return RAW_BODIES[random.nextInt(RAW_BODIES.length)];
+        }
+        Map<String, String> overrides = new HashMap<>();
+        Map<String, Object> structural = new LinkedHashMap<>();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            if (random.nextInt(8) == 0) {
+                structural.put(EXTRA_FIELDS[random.nextInt(EXTRA_FIELDS.length)], mutatedValue("extra", random, false));
+                continue;
+            }
+            String field = FIELDS[random.nextInt(FIELDS.length)];
+            Object value = mutatedValue(field, random, registering);
+            if (value instanceof String) {
+                overrides.put(field, (String) value);
+            } else {
+                structural.put(field, value);
+            }
+        }
+
+        Map<String, Object> mutated = new LinkedHashMap<>(payload);
+        if (registering) {
+            // string mutations go through the same generator the tests use, which fills in the valid remainder
+            mutated.putAll(DataGenerate.getRegistrationData(overrides));
+            if (!overrides.containsKey("email")) {
+                mutated.put("email", FRESH_EMAIL);
+            }
+        } else {
+            mutated.putAll(overrides);
+        }
+        for (Map.Entry<String, Object> entry : structural.entrySet()) {
+            if (entry.getValue() == DROP) {
+                mutated.remove(entry.getKey());
+            } else {
+                mutated.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return mutated;
+    }
+
+    private static Object mutatedValue(String field, ThreadLocalRandom random, boolean registering) {
+        switch (random.nextInt(7)) {
+            case 0:
+                return DROP;
+            case 1:
+                return DataGenerate.getRandomStringWithGivenSize(BOUNDARY_LENGTHS[random.nextInt(BOUNDARY_LENGTHS.length)]);
+            case 2:
+                return OVERSIZE_VALUES[random.nextInt(OVERSIZE_VALUES.length)];
+            case 3:
+                return UNICODE_VALUES[random.nextInt(UNICODE_VALUES.length)];
+            case 4:
+                return CONFUSED_VALUES[random.nextInt(CONFUSED_VALUES.length)];
+            case 5:
+                if (field.equals("email")) {
+                    // an address that is taken is only tried on registration, an edit would steal it
+                    return registering && random.nextBoolean() ? SharedResources.SHARED_TEST_USER
+                            : ODD_EMAILS[random.nextInt(ODD_EMAILS.length)];
+                }
+                return ODD_STRINGS[random.nextInt(ODD_STRINGS.length)];
+            default:
+                return ODD_STRINGS[random.nextInt(ODD_STRINGS.length)];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asFields(Object payload) {
+        return (Map<String, Object>) payload;
+    }
+
+    // the body with the values that were sent and all numbers blanked out, so ids and echoed input do not count
+    // as new behaviour; longest first, as a name may be part of the email, and nothing so short that it could be
+    // a word of the message ("null", "123")
+    private static String signature(String body, Map<String, String> sent) {
+        List<String> values = new ArrayList<>();
+        for (String value : sent.values()) {
+            if (value != null && value.length() >= MIN_ECHOED_INPUT) {
+                values.add(value);
+            }
+        }
+        values.sort(Comparator.comparingInt(String::length).reversed());
+        String signature = body;
+        for (String value : values) {
+            signature = signature.replace(value, "<input>");
+        }
+        signature = DIGITS.matcher(signature).replaceAll("#");
+        return signature.length() <= MAX_SIGNATURE ? signature : signature.substring(0, MAX_SIGNATURE) + "...";
+    }
+
+    private static String toJson(Object payload, Map<String, String> sent) {
+        if (payload instanceof RawJson) {
+            return ((RawJson) payload).json;
+        }
+        StringBuilder json = new StringBuilder();
+        append(json, payload, null, sent);
+        return json.toString();
+    }
+
+    private static void append(StringBuilder json, Object value, String field, Map<String, String> sent) {
+        if (value == FRESH_EMAIL) {
+            value = DataGenerate.getRandomEmail();
+        }
+        if (field != null) {
+            // numbers and booleans reach the server as their text, a user registered with one can still log in
+            sent.put(field, value instanceof String || value instanceof Number || value instanceof Boolean
+                    ? String.valueOf(value) : null);
+        }
+        if (value instanceof String || value == null) {
+            AsyncApiCoreRequests.appendString(json, (String) value);
+        } else if (value instanceof RawJson) {
+            json.append(((RawJson) value).json);
+        } else if (value instanceof Map) {
+            json.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                json.append(first ? "" : ",");
+                AsyncApiCoreRequests.appendString(json, String.valueOf(entry.getKey()));
+                json.append(':');
+                append(json, entry.getValue(), field == null ? String.valueOf(entry.getKey()) : null, sent);
+                first = false;
+            }
+            json.append('}');
+        } else if (value instanceof List) {
+            json.append('[');
+            boolean first = true;
+            for (Object element : (List<?>) value) {
+                json.append(first ? "" : ",");
+                append(json, element, null, sent);
+                first = false;
+            }
+            json.append(']');
+        } else {
+            json.append(value);
+        }
+    }
+
+    public static void main(String[] args) {
+        String baseUrl = System.getProperty("fuzz.baseUrl");
+        UserServiceStub stub = baseUrl == null ? UserServiceStub.start() : null;
+        try {
+            FuzzReport report = new PayloadFuzzer(stub != null ? stub.getBaseUrl() : baseUrl)
+                    .concurrency(Integer.getInteger("fuzz.concurrency", 64))
+                    .duration(Duration.ofSeconds(Long.getLong("fuzz.duration.seconds", 30)))
+                    .run();
+            System.out.println(report);
+        } finally {
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    private enum Target {
+        REGISTER("POST /api/user"),
+        EDIT("PUT /api/user/{id}");
+
+        private final String endpoint;
+
+        Target(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static class Outcome {
+        private final int status;
+        private final String signature;
+        private final String json;
+
+        Outcome(int status, String signature, String json) {
+            this.status = status;
+            this.signature = signature;
+            this.json = json;
+        }
+
+        String key() {
+            return status + " " + signature;
+        }
+    }
+
+    // JSON text sent as it is: bodies that are not an object, escapes a Java string cannot carry, malformed input
+    private static class RawJson {
+        private final String json;
+
+        RawJson(String json) {
+            this.json = json;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RawJson && Objects.equals(json, ((RawJson) other).json);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(json);
+        }
+
+        @Override
+        public String toString() {
+            return json;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package lib;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PooledUser {
+    private final int id;
+    private final Map<String, String> userData;
+    private final Session session;
+
+    public PooledUser(int id, Map<String, String> userData, Session session) {
+        this.id = id;
+        this.userData = Collections.unmodifiableMap(new HashMap<>(userData));
+        this.session = session;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return userData.get("email");
+    }
+
+    public String getPassword() {
+        return userData.get("password");
+    }
+
+    public Map<String, String> getUserData() {
+        return userData;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+}
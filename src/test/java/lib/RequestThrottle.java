@@ -0,0 +1,195 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Paces requests with a token bucket per host and endpoint (-Dapi.rateLimit=<requests per second>) and, with
+// -Dapi.concurrency.adaptive=true, caps requests in flight per host with an AIMD limit that grows while the server
+// keeps up and halves on errors or when latency climbs well above the best seen recently.
+public class RequestThrottle implements ApiFilter {
+    private static final RequestThrottle INSTANCE = new RequestThrottle(
+            Double.parseDouble(System.getProperty("api.rateLimit", "0")),
+            Integer.getInteger("api.rateLimit.burst", 0),
+            Boolean.getBoolean("api.concurrency.adaptive"),
+            Integer.getInteger("api.concurrency.initial", 8),
+            Integer.getInteger("api.concurrency.max", ApiClient.MAX_CONNECTIONS),
+            Double.parseDouble(System.getProperty("api.concurrency.latencyTolerance", "2")));
+    private static final long BASELINE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final Permit NO_LIMIT = new Permit(null);
+
+    private final double rate;
+    private final int burst;
+    private final boolean adaptive;
+    private final int initialLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+    public RequestThrottle(double rate, int burst, boolean adaptive, int initialLimit, int maxLimit,
+                           double latencyTolerance) {
+        this.rate = rate;
+        this.burst = burst > 0 ? burst : (int) Math.max(1, Math.ceil(rate));
+        this.adaptive = adaptive;
+        this.initialLimit = Math.max(1, Math.min(initialLimit, maxLimit));
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public static RequestThrottle getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isOverloaded(Response response) {
+        return response.statusCode() == 429 || response.statusCode() >= 500;
+    }
+
+    @Override
+    public CompletableFuture<Response> filter(ApiRequest request, FilterChain chain) {
+        CompletableFuture<Permit> permit = acquire(request.getMethod(), request.getUri());
+        if (request.isBlocking()) {
+            // waits on the caller's thread and is sent from it
+            Permit acquired = permit.join();
+            return chain.proceed(request).whenComplete((response, failure) -> acquired.release(response));
+        }
+        return permit.thenCompose(acquired -> chain.proceed(request)
+                .whenComplete((response, failure) -> acquired.release(response)));
+    }
+
+    // completes once the request may be sent, the permit goes back once its response arrived
+    public CompletableFuture<Permit> acquire(String method, String uri) {
+        if (rate <= 0 && !adaptive) {
+            return CompletableFuture.completedFuture(NO_LIMIT);
+        }
+        String host = URI.create(uri).getAuthority();
+        long wait = rate <= 0 ? 0 : buckets.computeIfAbsent(host + " " + method + " " + PathTemplate.of(uri),
+                key -> new TokenBucket(rate, burst)).reserve();
+        if (!adaptive) {
+            return wait == 0 ? CompletableFuture.completedFuture(NO_LIMIT)
+                    : CompletableFuture.supplyAsync(() -> NO_LIMIT, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
+        }
+
+        AdaptiveLimit limit = limits.computeIfAbsent(host, key -> new AdaptiveLimit(initialLimit, maxLimit, latencyTolerance));
+        return wait == 0 ? limit.acquire()
+                : CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS))
+                        .thenCompose(paced -> limit.acquire());
+    }
+
+    public int getConcurrencyLimit(String host) {
+        AdaptiveLimit limit = limits.get(host);
+        return limit == null ? initialLimit : limit.get();
+    }
+
+    public static class Permit {
+        private final AdaptiveLimit limit;
+        private final long acquiredAt = System.nanoTime();
+
+        Permit(AdaptiveLimit limit) {
+            this.limit = limit;
+        }
+
+        // a null response is a call that failed without one, which counts as overload
+        public void release(Response response) {
+            if (limit != null) {
+                limit.release(System.nanoTime() - acquiredAt, response == null || isOverloaded(response));
+            }
+        }
+    }
+
+    private static class TokenBucket {
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(double permitsPerSecond, int capacity) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+        }
+
+        // nanoseconds until the token taken here is due
+        synchronized long reserve() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+            // taking a token on credit makes later callers queue up behind this one in arrival order
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) (-tokens / permitsPerNano);
+        }
+    }
+
+    private static class AdaptiveLimit {
+        private final int maxLimit;
+        private final double latencyTolerance;
+        private double limit;
+        private int inFlight;
+        private long baselineNanos = Long.MAX_VALUE;
+        private long baselineSetAt = System.nanoTime();
+        private long decreasedAt;
+        private final ArrayDeque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+        AdaptiveLimit(int initialLimit, int maxLimit, double latencyTolerance) {
+            this.limit = initialLimit;
+            this.maxLimit = maxLimit;
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        synchronized int get() {
+            return (int) limit;
+        }
+
+        synchronized CompletableFuture<Permit> acquire() {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(this));
+            }
+            CompletableFuture<Permit> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        void release(long latencyNanos, boolean failed) {
+            // completed outside the lock, a waiter's request is sent from here
+            List<CompletableFuture<Permit>> granted = new ArrayList<>();
+            synchronized (this) {
+                update(latencyNanos, failed);
+                while (inFlight < (int) limit && !waiters.isEmpty()) {
+                    inFlight++;
+                    granted.add(waiters.poll());
+                }
+            }
+            for (CompletableFuture<Permit> waiter : granted) {
+                waiter.complete(new Permit(this));
+            }
+        }
+
+        private void update(long latencyNanos, boolean failed) {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+            long now = System.nanoTime();
+            // the best latency of the last window stands in for an unloaded server
+            if (latencyNanos < baselineNanos || now - baselineSetAt > BASELINE_WINDOW_NANOS) {
+                baselineNanos = latencyNanos;
+                baselineSetAt = now;
+            }
+
+            if (failed || latencyNanos > baselineNanos * latencyTolerance) {
+                // one decrease per round trip, the calls already in flight saw the same congestion
+                if (now - decreasedAt > latencyNanos) {
+                    limit = Math.max(1, limit / 2);
+                    decreasedAt = now;
+                }
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+}
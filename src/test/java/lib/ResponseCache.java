@@ -0,0 +1,134 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Opt-in LRU cache of successful GET responses for one run, keyed by URL and the token/cookie pair that made the call
+// (-Dapi.cache.size=<entries>, off by default). The API edits and deletes the user the session belongs to whatever
+// id is in the path, so a PUT or DELETE drops the entries for its path, for its session and for that session's user.
+public class ResponseCache implements ApiFilter {
+    private static final ResponseCache INSTANCE = new ResponseCache(Integer.getInteger("api.cache.size", 0));
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public ResponseCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    public static ResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    @Override
+    public CompletableFuture<Response> filter(ApiRequest request, FilterChain chain) {
+        if (!isEnabled()) {
+            return chain.proceed(request);
+        }
+        String uri = request.getUri();
+        String cookie = request.getCookie("auth_sid");
+        String identity = identity(request.getHeader("x-csrf-token"), cookie);
+
+        switch (request.getMethod()) {
+            case "GET":
+                String key = identity + ' ' + uri;
+                Entry cached;
+                synchronized (entries) {
+                    cached = entries.get(key);
+                }
+                if (cached != null) {
+                    return CompletableFuture.completedFuture(cached.response);
+                }
+                return chain.proceed(request).thenApply(response -> {
+                    // an error or a 404 can be gone by the next call, only a user's data is worth keeping
+                    if (response.statusCode() == 200) {
+                        synchronized (entries) {
+                            entries.put(key, new Entry(path(uri), identity, response));
+                        }
+                    }
+                    return response;
+                });
+            case "PUT":
+            case "DELETE":
+                String path = path(uri);
+                String ownerPath = ownerPath(path, cookie);
+                return chain.proceed(request).whenComplete((response, failure) -> invalidate(path, ownerPath, identity));
+            default:
+                return chain.proceed(request);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private void invalidate(String path, String ownerPath, String identity) {
+        synchronized (entries) {
+            for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+                Entry entry = iterator.next();
+                if (entry.path.equals(path) || (!identity.isEmpty() && entry.identity.equals(identity))
+                        || (ownerPath != null && (ownerPath.endsWith("/")
+                                ? entry.path.startsWith(ownerPath) : entry.path.equals(ownerPath)))) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    // the path of the user the session belongs to; a session no login of this run returned could be anyone's, the
+    // parent path with its trailing slash stands for all of them
+    private static String ownerPath(String path, String cookie) {
+        if (cookie == null) {
+            return null;
+        }
+        String parent = path.substring(0, path.lastIndexOf('/') + 1);
+        Session session = SessionPool.sessionOf(cookie);
+        return session == null ? parent : parent + session.getUserId();
+    }
+
+    private static String identity(String token, String cookie) {
+        if (token == null && cookie == null) {
+            return "";
+        }
+        return token + '\u0000' + cookie;
+    }
+
+    private static String path(String uri) {
+        int start = uri.indexOf("://");
+        start = start < 0 ? 0 : Math.max(uri.indexOf('/', start + 3), 0);
+        int query = uri.indexOf('?', start);
+        String path = query < 0 ? uri.substring(start) : uri.substring(start, query);
+        while (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    private static class Entry {
+        private final String path;
+        private final String identity;
+        private final Response response;
+
+        Entry(String path, String identity, Response response) {
+            this.path = path;
+            this.identity = identity;
+            this.response = response;
+        }
+    }
+}
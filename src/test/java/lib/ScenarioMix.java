@@ -0,0 +1,24 @@
+package lib;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// runs the given scenarios in turn, one per iteration
+public class ScenarioMix implements LoadScenario {
+    private final List<LoadScenario> scenarios;
+    private final AtomicLong next = new AtomicLong();
+
+    public ScenarioMix(LoadScenario... scenarios) {
+        this.scenarios = Arrays.asList(scenarios.clone());
+    }
+
+    public static ScenarioMix userTests() {
+        return new ScenarioMix(new UserRegisterScenario(), new UserEditScenario(), new UserDeleteScenario());
+    }
+
+    @Override
+    public void run(ApiCoreRequests apiCoreRequests, String baseUrl) {
+        scenarios.get((int) (next.getAndIncrement() % scenarios.size())).run(apiCoreRequests, baseUrl);
+    }
+}
@@ -0,0 +1,42 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// steps shared by the scenarios that replay the test classes' flows; a scenario deletes every user it registers,
+// a long run must not leave thousands of users behind
+final class ScenarioSteps {
+
+    private ScenarioSteps() {
+    }
+
+    static String userUrl(String baseUrl, int userId) {
+        return baseUrl + "/api/user/" + userId;
+    }
+
+    static Session registerAndLogin(ApiCoreRequests apiCoreRequests, String baseUrl) {
+        Map<String, String> userData = DataGenerate.getRegistrationData();
+        Response responseCreateAuth = apiCoreRequests.makePostRequest(baseUrl + "/api/user/", userData);
+        Assertions.assertResponseCodeEquals(responseCreateAuth, 200);
+        return login(apiCoreRequests, baseUrl, userData.get("email"), userData.get("password"));
+    }
+
+    // logs in against baseUrl rather than through SessionPool, which talks to ApiClient's base URL and would keep
+    // a session for every user ever created
+    static Session login(ApiCoreRequests apiCoreRequests, String baseUrl, String email, String password) {
+        Map<String, String> authData = new HashMap<>();
+        authData.put("email", email);
+        authData.put("password", password);
+        Response responseGetAuth = apiCoreRequests.makePostRequest(baseUrl + "/api/user/login", authData);
+        Assertions.assertResponseCodeEquals(responseGetAuth, 200);
+        return SessionPool.toSession(email, password, responseGetAuth);
+    }
+
+    static void delete(ApiCoreRequests apiCoreRequests, String baseUrl, Session session) {
+        Response responseDelete = apiCoreRequests.makeDeleteRequest(userUrl(baseUrl, session.getUserId()),
+                session.getToken(), session.getCookie());
+        Assertions.assertResponseCodeEquals(responseDelete, 200);
+    }
+}
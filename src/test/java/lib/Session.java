@@ -0,0 +1,43 @@
+package lib;
+
+public class Session {
+    private final String email;
+    private final String password;
+    private final String token;
+    private final String cookie;
+    private final int userId;
+    private final long createdAt;
+
+    public Session(String email, String password, String token, String cookie, int userId) {
+        this.email = email;
+        this.password = password;
+        this.token = token;
+        this.cookie = cookie;
+        this.userId = userId;
+        this.createdAt = System.nanoTime();
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getCookie() {
+        return cookie;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public long getAgeNanos() {
+        return System.nanoTime() - createdAt;
+    }
+}
@@ -0,0 +1,153 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class SessionPool {
+    private static final String LOGIN_URL = "/user/login";
+    private static final String AUTH_ERROR = "Auth token not supplied";
+    private static final SessionPool INSTANCE =
+            new SessionPool(Long.getLong("session.ttl.seconds", 600), TimeUnit.SECONDS);
+
+    // every session made by toSession, by its auth_sid; an entry goes once nothing else holds its session
+    private static final Map<String, Session> BY_COOKIE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ConcurrentHashMap<String, CompletableFuture<Session>> sessions = new ConcurrentHashMap<>();
+    private final ApiCoreRequests apiCoreRequests = new ApiCoreRequests();
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final ScheduledExecutorService refresher;
+
+    private SessionPool(long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+        // refresh ahead of expiry so callers never wait on a login for a known account
+        this.refreshAfterNanos = ttlNanos / 4 * 3;
+
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-pool-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(ttlNanos / 4, TimeUnit.SECONDS.toNanos(1));
+        refresher.scheduleWithFixedDelay(this::refreshExpiring, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    public static SessionPool getInstance() {
+        return INSTANCE;
+    }
+
+    // the refresher thread holds on to the pool, and with it to the class loader of a TestDaemon run
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    public static boolean isAuthFailure(Response response) {
+        return response.statusCode() == 401 || AUTH_ERROR.equals(response.asString());
+    }
+
+    public Session getSession(String email, String password) {
+        String key = key(email, password);
+        while (true) {
+            CompletableFuture<Session> future = sessions.get(key);
+            if (future == null) {
+                CompletableFuture<Session> created = new CompletableFuture<>();
+                future = sessions.putIfAbsent(key, created);
+                if (future == null) {
+                    future = created;
+                    try {
+                        created.complete(login(email, password));
+                    } catch (RuntimeException | Error e) {
+                        sessions.remove(key, created);
+                        created.completeExceptionally(e);
+                    }
+                }
+            }
+
+            Session session = await(future);
+            if (session.getAgeNanos() < ttlNanos) {
+                return session;
+            }
+            sessions.remove(key, future);
+        }
+    }
+
+    public void invalidate(Session session) {
+        sessions.computeIfPresent(key(session.getEmail(), session.getPassword()),
+                (key, future) -> future.getNow(null) == session ? null : future);
+    }
+
+    public Session renew(Session session) {
+        invalidate(session);
+        return getSession(session.getEmail(), session.getPassword());
+    }
+
+    private void refreshExpiring() {
+        for (Map.Entry<String, CompletableFuture<Session>> entry : sessions.entrySet()) {
+            CompletableFuture<Session> future = entry.getValue();
+            Session session = future.isCompletedExceptionally() ? null : future.getNow(null);
+            if (session == null || session.getAgeNanos() < refreshAfterNanos) {
+                continue;
+            }
+            try {
+                Session fresh = login(session.getEmail(), session.getPassword());
+                sessions.replace(entry.getKey(), future, CompletableFuture.completedFuture(fresh));
+            } catch (RuntimeException e) {
+                // keep the current session until its TTL runs out, the next caller will log in again
+            }
+        }
+    }
+
+    private Session login(String email, String password) {
+        Map<String, String> authData = new HashMap<>();
+        authData.put("email", email);
+        authData.put("password", password);
+
+        return toSession(email, password, apiCoreRequests.makePostRequest(LOGIN_URL, authData));
+    }
+
+    static Session toSession(String email, String password, Response responseGetAuth) {
+        String token = responseGetAuth.getHeader("x-csrf-token");
+        String cookie = responseGetAuth.getCookie("auth_sid");
+        if (token == null || cookie == null) {
+            throw new IllegalStateException("Login failed for " + email + ": "
+                    + responseGetAuth.statusCode() + " " + responseGetAuth.asString());
+        }
+        Session session = new Session(email, password, token, cookie, JsonView.of(responseGetAuth).getInt("user_id"));
+        // keyed by the session's own string, so the entry is only weakly held
+        BY_COOKIE.put(session.getCookie(), session);
+        return session;
+    }
+
+    // the session an auth_sid belongs to, null for one no login of this run returned
+    static Session sessionOf(String cookie) {
+        return BY_COOKIE.get(cookie);
+    }
+
+    private static Session await(CompletableFuture<Session> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static String key(String email, String password) {
+        return email + '\u0000' + password;
+    }
+}
@@ -0,0 +1,6 @@
+package lib;
+
+public class SharedResources {
+    // lock name for tests that log in as, or try to change, the shared vinkotov@example.com account
+    public static final String SHARED_TEST_USER = "vinkotov@example.com";
+}
@@ -0,0 +1,181 @@
+package lib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class SoakReport {
+    private final List<Window> windows;
+    private final List<Drift> drifts;
+
+    public SoakReport(List<Window> windows, List<Drift> drifts) {
+        this.windows = Collections.unmodifiableList(new ArrayList<>(windows));
+        this.drifts = Collections.unmodifiableList(new ArrayList<>(drifts));
+    }
+
+    public List<Window> getWindows() {
+        return windows;
+    }
+
+    public List<Drift> getDrifts() {
+        return drifts;
+    }
+
+    public boolean hasDrift() {
+        for (Drift drift : drifts) {
+            if (drift.isSignificant()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        long iterations = 0;
+        long failures = 0;
+        for (Window window : windows) {
+            iterations += window.getLoad().getIterations();
+            failures += window.getLoad().getFailures();
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Soak: %d windows, iterations %d, failed %d%n", windows.size(), iterations, failures));
+        report.append(String.format("%-36s %8s %12s %12s %10s %8s  %s%n",
+                "metric", "windows", "first", "last", "per hour", "z", "verdict"));
+        for (Drift drift : drifts) {
+            report.append(String.format("%-36s %8d %12.2f %12.2f %+9.1f%% %8.2f  %s%n",
+                    drift.getMetric(), drift.getSamples(), drift.getFirst(), drift.getLast(),
+                    drift.getRelativeSlopePerHour() * 100, drift.getZ(), drift.isSignificant() ? "DRIFT" : "stable"));
+        }
+        return report.toString();
+    }
+
+    public static class Window {
+        private final long startedAtNanos;
+        private final LoadReport load;
+        private final ClientSample client;
+
+        Window(long startedAtNanos, LoadReport load, ClientSample client) {
+            this.startedAtNanos = startedAtNanos;
+            this.load = load;
+            this.client = client;
+        }
+
+        // since the soak started
+        public long getStartedAtNanos() {
+            return startedAtNanos;
+        }
+
+        public LoadReport getLoad() {
+            return load;
+        }
+
+        public ClientSample getClient() {
+            return client;
+        }
+    }
+
+    public static class ClientSample {
+        private final long heapAfterGcBytes;
+        private final long heapUsedBytes;
+        private final int threads;
+        private final long sockets;
+        private final long openFiles;
+
+        ClientSample(long heapAfterGcBytes, long heapUsedBytes, int threads, long sockets, long openFiles) {
+            this.heapAfterGcBytes = heapAfterGcBytes;
+            this.heapUsedBytes = heapUsedBytes;
+            this.threads = threads;
+            this.sockets = sockets;
+            this.openFiles = openFiles;
+        }
+
+        // live data left after the last collection, the heap figure that grows with a leak
+        public long getHeapAfterGcBytes() {
+            return heapAfterGcBytes;
+        }
+
+        public long getHeapUsedBytes() {
+            return heapUsedBytes;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        // -1 where the JVM cannot tell
+        public long getSockets() {
+            return sockets;
+        }
+
+        public long getOpenFiles() {
+            return openFiles;
+        }
+
+        Map<String, Double> asMetrics() {
+            Map<String, Double> metrics = new TreeMap<>();
+            metrics.put("client heap after GC (MB)", heapAfterGcBytes / 1048576.0);
+            metrics.put("client threads", (double) threads);
+            if (sockets >= 0) {
+                metrics.put("client sockets", (double) sockets);
+            }
+            if (openFiles >= 0) {
+                metrics.put("client open files", (double) openFiles);
+            }
+            return metrics;
+        }
+    }
+
+    public static class Drift {
+        private final String metric;
+        private final int samples;
+        private final double first;
+        private final double last;
+        private final double relativeSlopePerHour;
+        private final double z;
+        private final boolean significant;
+
+        Drift(String metric, int samples, double first, double last, double relativeSlopePerHour, double z,
+              boolean significant) {
+            this.metric = metric;
+            this.samples = samples;
+            this.first = first;
+            this.last = last;
+            this.relativeSlopePerHour = relativeSlopePerHour;
+            this.z = z;
+            this.significant = significant;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+
+        public double getFirst() {
+            return first;
+        }
+
+        public double getLast() {
+            return last;
+        }
+
+        // Theil-Sen slope relative to the median of the series
+        public double getRelativeSlopePerHour() {
+            return relativeSlopePerHour;
+        }
+
+        // Mann-Kendall statistic, positive for an upward trend
+        public double getZ() {
+            return z;
+        }
+
+        public boolean isSignificant() {
+            return significant;
+        }
+    }
+}
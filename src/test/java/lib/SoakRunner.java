@@ -0,0 +1,289 @@
+package lib;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Runs a scenario for hours as a series of LoadRunner windows, keeps per-endpoint percentiles and client heap, thread
+// and socket counts for every window (also appended to soak-*.csv as it goes) and flags metrics that keep rising:
+// a Mann-Kendall trend test says whether the rise is real, the Theil-Sen slope whether it is big enough to matter.
+public class SoakRunner {
+    private static final double[] PERCENTILES = {50, 95, 99};
+    // fewer windows than this say nothing about a trend
+    private static final int MIN_WINDOWS = 6;
+    private static final double NANOS_PER_HOUR = TimeUnit.HOURS.toNanos(1);
+
+    private final String baseUrl;
+    private final LoadScenario scenario;
+    private int concurrency = 8;
+    private double arrivalRate;
+    private Duration duration = Duration.ofHours(1);
+    private Duration window = Duration.ofMinutes(1);
+    private int warmupWindows = 1;
+    private double zThreshold = 3;
+    private double minRelativeChange = 0.2;
+    private Path outputDir = Paths.get(System.getProperty("soak.dir", "target/soak"));
+    private PrintStream progress;
+
+    public SoakRunner(String baseUrl, LoadScenario scenario) {
+        this.baseUrl = baseUrl;
+        this.scenario = scenario;
+    }
+
+    public SoakRunner concurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    public SoakRunner arrivalRate(double arrivalRate) {
+        this.arrivalRate = arrivalRate;
+        return this;
+    }
+
+    public SoakRunner duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public SoakRunner window(Duration window) {
+        this.window = window;
+        return this;
+    }
+
+    // windows left out of the trend while the JIT, pools and caches warm up
+    public SoakRunner warmupWindows(int warmupWindows) {
+        this.warmupWindows = warmupWindows;
+        return this;
+    }
+
+    // a metric drifts when its Mann-Kendall z reaches zThreshold and it grew by minRelativeChange over the run
+    public SoakRunner driftThreshold(double zThreshold, double minRelativeChange) {
+        this.zThreshold = zThreshold;
+        this.minRelativeChange = minRelativeChange;
+        return this;
+    }
+
+    public SoakRunner outputDir(Path outputDir) {
+        this.outputDir = outputDir;
+        return this;
+    }
+
+    // a line per window for whoever watches a long run, the CSV files get every window anyway
+    public SoakRunner progress(PrintStream progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    // thousands of requests from inside one test, none of them is worth an attachment
+    public SoakReport run() {
+        return AllureFilter.getInstance().withMode(AllureFilter.Mode.OFF, this::runSoak);
+    }
+
+    private SoakReport runSoak() {
+        long windowCount = Math.max(1, duration.toNanos() / window.toNanos());
+        List<SoakReport.Window> windows = new ArrayList<>();
+        startLog();
+        long start = System.nanoTime();
+        for (int i = 0; i < windowCount; i++) {
+            long startedAt = System.nanoTime() - start;
+            LoadReport load = new LoadRunner(baseUrl, scenario)
+                    .concurrency(concurrency)
+                    .arrivalRate(arrivalRate)
+                    .duration(window)
+                    .run();
+            SoakReport.Window sample = new SoakReport.Window(startedAt, load, sampleClient());
+            windows.add(sample);
+            log(i, sample);
+            if (progress != null) {
+                progress.printf(Locale.ROOT, "Soak window %d/%d: %d iterations, %d failed, %.1f MB heap after GC, "
+                                + "%d threads, %d sockets%n", i + 1, windowCount, load.getIterations(),
+                        load.getFailures(), sample.getClient().getHeapAfterGcBytes() / 1048576.0,
+                        sample.getClient().getThreads(), sample.getClient().getSockets());
+            }
+        }
+        return new SoakReport(windows, detectDrift(windows));
+    }
+
+    private List<SoakReport.Drift> detectDrift(List<SoakReport.Window> windows) {
+        Map<String, List<double[]>> series = new TreeMap<>();
+        for (SoakReport.Window sample : windows.subList(Math.min(warmupWindows, windows.size()), windows.size())) {
+            double hours = sample.getStartedAtNanos() / NANOS_PER_HOUR;
+            for (Map.Entry<String, LoadRunner.EndpointStats> endpoint : sample.getLoad().getEndpoints().entrySet()) {
+                LatencyHistogram latency = endpoint.getValue().getLatencyMicros();
+                if (latency.getCount() == 0) {
+                    continue;
+                }
+                for (double percentile : PERCENTILES) {
+                    series.computeIfAbsent(endpoint.getKey() + " p" + (int) percentile + " (ms)", key -> new ArrayList<>())
+                            .add(new double[] {hours, latency.getPercentile(percentile) / 1000.0});
+                }
+            }
+            for (Map.Entry<String, Double> metric : sample.getClient().asMetrics().entrySet()) {
+                series.computeIfAbsent(metric.getKey(), key -> new ArrayList<>())
+                        .add(new double[] {hours, metric.getValue()});
+            }
+        }
+
+        List<SoakReport.Drift> drifts = new ArrayList<>();
+        for (Map.Entry<String, List<double[]>> metric : series.entrySet()) {
+            if (metric.getValue().size() >= MIN_WINDOWS) {
+                drifts.add(trend(metric.getKey(), metric.getValue()));
+            }
+        }
+        return drifts;
+    }
+
+    // points are {hours since the start, value}, in the order they were taken
+    public SoakReport.Drift trend(String metric, List<double[]> points) {
+        int n = points.size();
+        double[] values = new double[n];
+        double[] slopes = new double[n * (n - 1) / 2];
+        int slopeCount = 0;
+        long s = 0;
+        for (int i = 0; i < n; i++) {
+            values[i] = points.get(i)[1];
+            for (int j = i + 1; j < n; j++) {
+                double rise = points.get(j)[1] - points.get(i)[1];
+                s += (long) Math.signum(rise);
+                double run = points.get(j)[0] - points.get(i)[0];
+                if (run > 0) {
+                    slopes[slopeCount++] = rise / run;
+                }
+            }
+        }
+        // no correction for ties, which only makes the test more conservative
+        double sigma = Math.sqrt(n * (n - 1.0) * (2.0 * n + 5) / 18);
+        double z = s > 0 ? (s - 1) / sigma : s < 0 ? (s + 1) / sigma : 0;
+        double slopePerHour = slopeCount == 0 ? 0 : median(Arrays.copyOf(slopes, slopeCount));
+        // one unit (ms, MB, thread, socket) at least, a series sitting at zero has no meaningful relative change
+        double scale = Math.max(Math.abs(median(values.clone())), 1);
+        double change = slopePerHour * (points.get(n - 1)[0] - points.get(0)[0]) / scale;
+
+        int edge = Math.max(1, n / 4);
+        return new SoakReport.Drift(metric, n, median(Arrays.copyOfRange(values, 0, edge)),
+                median(Arrays.copyOfRange(values, n - edge, n)), slopePerHour / scale, z,
+                z >= zThreshold && change >= minRelativeChange);
+    }
+
+    private static double median(double[] values) {
+        Arrays.sort(values);
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+
+    static SoakReport.ClientSample sampleClient() {
+        long heapAfterGc = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && afterGc != null) {
+                heapAfterGc += afterGc.getUsed();
+            }
+        }
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        long openFiles = os instanceof com.sun.management.UnixOperatingSystemMXBean
+                ? ((com.sun.management.UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount() : -1;
+        return new SoakReport.ClientSample(heapAfterGc,
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                ManagementFactory.getThreadMXBean().getThreadCount(), countSockets(), openFiles);
+    }
+
+    // Linux only: every descriptor in /proc/self/fd that links to socket:[inode]
+    private static long countSockets() {
+        Path fds = Paths.get("/proc/self/fd");
+        if (!Files.isDirectory(fds)) {
+            return -1;
+        }
+        long sockets = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(fds)) {
+            for (Path entry : entries) {
+                try {
+                    if (Files.readSymbolicLink(entry).toString().startsWith("socket:")) {
+                        sockets++;
+                    }
+                } catch (IOException e) {
+                    // closed while we were listing
+                }
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        return sockets;
+    }
+
+    private void startLog() {
+        write("soak-endpoints.csv", "window,elapsed_s,endpoint,requests,errors,p50_ms,p95_ms,p99_ms,max_ms\n", false);
+        write("soak-client.csv", "window,elapsed_s,iterations,failures,heap_after_gc_mb,heap_used_mb,threads,sockets,"
+                + "open_files\n", false);
+    }
+
+    private void log(int index, SoakReport.Window sample) {
+        double elapsed = sample.getStartedAtNanos() / 1e9;
+        StringBuilder endpoints = new StringBuilder();
+        for (Map.Entry<String, LoadRunner.EndpointStats> entry : sample.getLoad().getEndpoints().entrySet()) {
+            LatencyHistogram latency = entry.getValue().getLatencyMicros();
+            endpoints.append(String.format(Locale.ROOT, "%d,%.1f,%s,%d,%d,%.2f,%.2f,%.2f,%.2f%n", index, elapsed,
+                    entry.getKey(), latency.getCount(), entry.getValue().getErrors(), latency.getPercentile(50) / 1000.0,
+                    latency.getPercentile(95) / 1000.0, latency.getPercentile(99) / 1000.0, latency.getMax() / 1000.0));
+        }
+        write("soak-endpoints.csv", endpoints.toString(), true);
+        SoakReport.ClientSample client = sample.getClient();
+        write("soak-client.csv", String.format(Locale.ROOT, "%d,%.1f,%d,%d,%.1f,%.1f,%d,%d,%d%n", index, elapsed,
+                sample.getLoad().getIterations(), sample.getLoad().getFailures(),
+                client.getHeapAfterGcBytes() / 1048576.0, client.getHeapUsedBytes() / 1048576.0, client.getThreads(),
+                client.getSockets(), client.getOpenFiles()), true);
+    }
+
+    private void write(String file, String text, boolean append) {
+        try {
+            Files.createDirectories(outputDir);
+            Files.write(outputDir.resolve(file), text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                    append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write soak results to " + outputDir, e);
+        }
+    }
+
+    public static void main(String[] args) {
+        String baseUrl = System.getProperty("soak.baseUrl");
+        UserServiceStub stub = baseUrl == null ? UserServiceStub.start() : null;
+        SoakReport report;
+        try {
+            report = new SoakRunner(stub != null ? stub.getBaseUrl() : baseUrl, ScenarioMix.userTests())
+                    .concurrency(Integer.getInteger("soak.concurrency", 8))
+                    .arrivalRate(Double.parseDouble(System.getProperty("soak.rate", "0")))
+                    .duration(Duration.ofMinutes(Long.getLong("soak.duration.minutes", 60)))
+                    .window(Duration.ofSeconds(Long.getLong("soak.window.seconds", 60)))
+                    .warmupWindows(Integer.getInteger("soak.warmupWindows", 1))
+                    .driftThreshold(Double.parseDouble(System.getProperty("soak.drift.z", "3")),
+                            Double.parseDouble(System.getProperty("soak.drift.minChange", "0.2")))
+                    .progress(System.out)
+                    .run();
+            System.out.println(report);
+        } finally {
+            if (stub != null) {
+                stub.close();
+            }
+        }
+        // a non-zero exit fails the pipeline that qualifies a server build or a framework change
+        System.exit(report.hasDrift() ? 1 : 0);
+    }
+}
@@ -0,0 +1,36 @@
+package lib;
+
+public class TestContext {
+    private static final ThreadLocal<TestContext> CURRENT = new ThreadLocal<>();
+
+    private final String testId;
+    private Session session;
+
+    public TestContext(String testId) {
+        this.testId = testId;
+    }
+
+    public static TestContext current() {
+        return CURRENT.get();
+    }
+
+    static void bind(TestContext context) {
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+    }
+
+    public String getTestId() {
+        return testId;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public void setSession(Session session) {
+        this.session = session;
+    }
+}
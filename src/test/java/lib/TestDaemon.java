@@ -0,0 +1,460 @@
+package lib;
+
+import io.qameta.allure.Allure;
+import io.restassured.RestAssured;
+import io.restassured.path.json.JsonPath;
+import io.restassured.path.xml.XmlPath;
+import org.junit.platform.commons.support.HierarchyTraversalMode;
+import org.junit.platform.commons.support.ReflectionSupport;
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+import java.beans.Introspector;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Keeps a JVM with RestAssured, its Groovy json/html paths, Allure and the JUnit Platform loaded and warm, and runs
+// the tests a TestDaemonClient sends it. The compiled test classes themselves (every directory on the classpath, or
+// -Ddaemon.reload=<dirs>) are loaded child-first by a fresh class loader for every run, so each run sees the latest
+// compile and starts from clean static state: its own ApiClient, stub, pools, cassette and metrics.
+//   java -cp <test classpath> lib.TestDaemon                  -Ddaemon.port (7358), -Ddaemon.warmup=<selectors>
+//   java -cp target/test-classes lib.TestDaemonClient tests.UserEditTest#testEditWrongEmailTest
+// Runs are one at a time, as system properties and System.out are process-wide.
+public class TestDaemon {
+    static final int MAGIC = 0x54455354;
+    static final int DEFAULT_PORT = 7358;
+    // a selector count that asks the daemon to exit
+    static final int STOP = -1;
+    static final byte OUTPUT = 'O';
+    static final byte RESULT = 'R';
+    static final byte DONE = 'D';
+    // writeUTF takes at most 64 KB, three bytes per char at worst
+    private static final int MAX_FRAME_CHARS = 16_000;
+
+    private final List<URL> reloadable;
+
+    public TestDaemon(List<URL> reloadable) {
+        this.reloadable = reloadable;
+    }
+
+    public static void main(String[] args) throws IOException {
+        TestDaemon daemon = new TestDaemon(reloadableClasspath());
+        long start = System.nanoTime();
+        warmUp();
+        String warmup = System.getProperty("daemon.warmup", "").trim();
+        if (!warmup.isEmpty()) {
+            daemon.run(Collections.emptyMap(), Arrays.asList(warmup.split("\\s*,\\s*")), Client.DISCARD);
+        }
+        int port = Integer.getInteger("daemon.port", DEFAULT_PORT);
+        try (ServerSocket server = new ServerSocket(port, 16, InetAddress.getLoopbackAddress())) {
+            System.out.printf("Test daemon ready on 127.0.0.1:%d after %d ms, reloading %s%n", server.getLocalPort(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), daemon.reloadable);
+            while (true) {
+                try (Socket socket = server.accept()) {
+                    if (!daemon.serve(socket)) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    System.err.println("Test daemon lost a client: " + e);
+                }
+            }
+        }
+        // RestAssured's pooled connections are not daemon threads
+        System.exit(0);
+    }
+
+    // false once a client asked the daemon to stop
+    private boolean serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        if (in.readInt() != MAGIC) {
+            return true;
+        }
+        Map<String, String> properties = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            properties.put(in.readUTF(), in.readUTF());
+        }
+        int selectorCount = in.readInt();
+        Client client = new Client(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+        if (selectorCount == STOP) {
+            client.done("Test daemon stopped", 0);
+            return false;
+        }
+        List<String> selectors = new ArrayList<>();
+        for (int i = 0; i < selectorCount; i++) {
+            selectors.add(in.readUTF());
+        }
+        run(properties, selectors, client);
+        return true;
+    }
+
+    private void run(Map<String, String> properties, List<String> selectors, Client client) {
+        long start = System.nanoTime();
+        Map<String, String> previousProperties = new HashMap<>();
+        properties.forEach((key, value) -> previousProperties.put(key, System.setProperty(key, value)));
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        ResultListener results = new ResultListener(client);
+        URLClassLoader testClassLoader = new ReloadingClassLoader(reloadable.toArray(new URL[0]), contextClassLoader);
+        try {
+            PrintStream captured = new PrintStream(client.output(), true, StandardCharsets.UTF_8);
+            System.setOut(captured);
+            System.setErr(captured);
+            // JUnit loads test classes, extensions and junit-platform.properties through the context class loader
+            thread.setContextClassLoader(testClassLoader);
+            Launcher launcher = LauncherFactory.create();
+            LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                    .selectors(toSelectors(selectors, testClassLoader))
+                    .build();
+            launcher.execute(request, results);
+        } catch (RuntimeException | LinkageError e) {
+            results.failed("Test run", e);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+            release(testClassLoader, contextClassLoader);
+            System.setOut(out);
+            System.setErr(err);
+            previousProperties.forEach((key, value) -> {
+                if (value == null) {
+                    System.clearProperty(key);
+                } else {
+                    System.setProperty(key, value);
+                }
+            });
+            // a test that changed RestAssured's static defaults must not leave them to the next run
+            RestAssured.reset();
+        }
+        client.done(results.summary(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)),
+                results.failures > 0 ? 1 : 0);
+    }
+
+    // Threads started during the run inherit its class loader as their context class loader. One that outlives the
+    // run, like the selector thread of an HttpClient kept in a static field, would keep the loader and every class
+    // of the run alive, and the loader's statics keep the thread alive in turn.
+    private static void release(URLClassLoader testClassLoader, ClassLoader parent) {
+        for (Thread running : Thread.getAllStackTraces().keySet()) {
+            if (running.getContextClassLoader() == testClassLoader) {
+                running.setContextClassLoader(parent);
+            }
+        }
+        // Groovy builds a metaclass for every filter RestAssured calls through java.beans, whose cache holds on to
+        // the class it describes
+        Introspector.flushCaches();
+        try {
+            testClassLoader.close();
+        } catch (IOException e) {
+            // only open class directories, nothing to lose
+        }
+    }
+
+    // tests.UserEditTest#testEditWrongEmailTest, tests.UserEditTest or the package tests
+    private static List<DiscoverySelector> toSelectors(List<String> selectors, ClassLoader classLoader) {
+        List<DiscoverySelector> discoverySelectors = new ArrayList<>();
+        for (String selector : selectors) {
+            if (selector.contains("#")) {
+                discoverySelectors.addAll(selectMethods(selector, classLoader));
+            } else if (isClass(selector, classLoader)) {
+                discoverySelectors.add(DiscoverySelectors.selectClass(selector));
+            } else {
+                discoverySelectors.add(DiscoverySelectors.selectPackage(selector));
+            }
+        }
+        return discoverySelectors;
+    }
+
+    // "Class#method" names no parameter types, which JUnit reads as a method without parameters; a parameterized test
+    // has some, so every method of that name is looked up in the run's classes and selected with its own
+    private static List<DiscoverySelector> selectMethods(String selector, ClassLoader classLoader) {
+        int hash = selector.indexOf('#');
+        String methodName = selector.substring(hash + 1);
+        if (methodName.contains("(")) {
+            return Collections.singletonList(DiscoverySelectors.selectMethod(selector));
+        }
+        List<DiscoverySelector> methods = new ArrayList<>();
+        try {
+            Class<?> testClass = Class.forName(selector.substring(0, hash), false, classLoader);
+            for (Method method : ReflectionSupport.findMethods(testClass,
+                    candidate -> candidate.getName().equals(methodName), HierarchyTraversalMode.TOP_DOWN)) {
+                methods.add(DiscoverySelectors.selectMethod(testClass, method));
+            }
+        } catch (ClassNotFoundException e) {
+            // JUnit reports the selector it can not resolve
+        }
+        return methods.isEmpty() ? Collections.singletonList(DiscoverySelectors.selectMethod(selector)) : methods;
+    }
+
+    private static boolean isClass(String name, ClassLoader classLoader) {
+        try {
+            Class.forName(name, false, classLoader);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // the first json and html paths compile Groovy and take most of a second, every run after that gets them for free
+    private static void warmUp() {
+        JsonPath.from("{\"user_id\":1,\"username\":\"learnqa\",\"tags\":[\"a\"]}").getInt("user_id");
+        new XmlPath(XmlPath.CompatibilityMode.HTML, "<html><body><p>warm</p></body></html>").getString("html.body");
+        RestAssured.given().baseUri("http://127.0.0.1").basePath("/api").contentType("application/json");
+        Allure.getLifecycle();
+    }
+
+    private static List<URL> reloadableClasspath() {
+        String classpath = System.getProperty("daemon.reload", System.getProperty("java.class.path"));
+        List<URL> urls = new ArrayList<>();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            if (!entry.isEmpty() && Files.isDirectory(Paths.get(entry))) {
+                try {
+                    urls.add(Paths.get(entry).toUri().toURL());
+                } catch (MalformedURLException e) {
+                    throw new IllegalArgumentException("Bad classpath entry " + entry, e);
+                }
+            }
+        }
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("No class directories to reload on " + classpath);
+        }
+        return urls;
+    }
+
+    // Loads what is in the compiled test directories itself and leaves everything else (the JDK and the jars) to
+    // the daemon's class loader, so framework classes stay warm while test code is fresh every run
+    private static class ReloadingClassLoader extends URLClassLoader {
+        static {
+            registerAsParallelCapable();
+        }
+
+        ReloadingClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        // A thread keeps the protection domains of the code that started it, and URLClassLoader's domains point back
+        // at the loader: any thread a test leaves running would hold on to the whole run. These domains do not.
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            String path = name.replace('.', '/') + ".class";
+            URL resource = findResource(path);
+            if (resource == null) {
+                throw new ClassNotFoundException(name);
+            }
+            try (InputStream input = resource.openStream()) {
+                byte[] bytes = input.readAllBytes();
+                URL location = resource.toURI()
+                        .resolve(resource.getPath().substring(0, resource.getPath().length() - path.length())).toURL();
+                return defineClass(name, bytes, 0, bytes.length,
+                        new ProtectionDomain(new CodeSource(location, (CodeSigner[]) null), null));
+            } catch (IOException | URISyntaxException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null && !name.startsWith("java.")) {
+                    try {
+                        loaded = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        // not one of ours
+                    }
+                }
+                if (loaded == null) {
+                    loaded = getParent().loadClass(name);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+
+        @Override
+        public URL getResource(String name) {
+            URL resource = findResource(name);
+            return resource != null ? resource : super.getResource(name);
+        }
+    }
+
+    // Streams frames to the client; a client that went away only loses the rest of the output, the run goes on
+    private static class Client {
+        static final Client DISCARD = new Client(null);
+
+        private final DataOutputStream out;
+        private boolean gone;
+
+        Client(DataOutputStream out) {
+            this.out = out;
+            this.gone = out == null;
+        }
+
+        synchronized void send(byte type, String text) {
+            if (gone) {
+                return;
+            }
+            try {
+                for (int offset = 0; offset < text.length() || offset == 0; offset += MAX_FRAME_CHARS) {
+                    out.writeByte(type);
+                    out.writeUTF(text.substring(offset, Math.min(text.length(), offset + MAX_FRAME_CHARS)));
+                }
+                if (type != OUTPUT) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                gone = true;
+            }
+        }
+
+        synchronized void done(String summary, int exitCode) {
+            send(DONE, summary);
+            if (gone) {
+                return;
+            }
+            try {
+                out.writeInt(exitCode);
+                out.flush();
+            } catch (IOException e) {
+                gone = true;
+            }
+        }
+
+        // what the tests print, sent a line at a time
+        OutputStream output() {
+            return new OutputStream() {
+                private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+                @Override
+                public synchronized void write(int b) {
+                    line.write(b);
+                    if (b == '\n') {
+                        flush();
+                    }
+                }
+
+                @Override
+                public synchronized void flush() {
+                    if (line.size() > 0) {
+                        send(OUTPUT, line.toString(StandardCharsets.UTF_8));
+                        line.reset();
+                    }
+                }
+            };
+        }
+    }
+
+    private static class ResultListener implements TestExecutionListener {
+        private final Client client;
+        private final Map<String, Long> startedAt = new ConcurrentHashMap<>();
+        private int passed;
+        private int failures;
+        private int skipped;
+
+        ResultListener(Client client) {
+            this.client = client;
+        }
+
+        @Override
+        public void executionStarted(TestIdentifier testIdentifier) {
+            startedAt.put(testIdentifier.getUniqueId(), System.nanoTime());
+        }
+
+        @Override
+        public synchronized void executionSkipped(TestIdentifier testIdentifier, String reason) {
+            skipped++;
+            client.send(RESULT, String.format("SKIPPED %s: %s", name(testIdentifier), reason));
+        }
+
+        @Override
+        public synchronized void executionFinished(TestIdentifier testIdentifier, TestExecutionResult result) {
+            Long started = startedAt.remove(testIdentifier.getUniqueId());
+            long millis = started == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            switch (result.getStatus()) {
+                case SUCCESSFUL:
+                    if (testIdentifier.isTest()) {
+                        passed++;
+                        client.send(RESULT, String.format("PASSED  %s (%d ms)", name(testIdentifier), millis));
+                    }
+                    break;
+                case ABORTED:
+                    // a failed assumption, counted with the skipped tests
+                    skipped++;
+                    client.send(RESULT, String.format("ABORTED %s: %s", name(testIdentifier),
+                            result.getThrowable().map(Throwable::getMessage).orElse("")));
+                    break;
+                default:
+                    failed(name(testIdentifier) + " (" + millis + " ms)", result.getThrowable().orElse(null));
+            }
+        }
+
+        synchronized void failed(String name, Throwable failure) {
+            failures++;
+            StringWriter trace = new StringWriter();
+            if (failure != null) {
+                failure.printStackTrace(new PrintWriter(trace));
+            }
+            client.send(RESULT, "FAILED  " + name + System.lineSeparator() + trace);
+        }
+
+        synchronized String summary(long millis) {
+            return String.format("%d passed, %d failed, %d skipped in %d ms", passed, failures, skipped, millis);
+        }
+
+        private static String name(TestIdentifier testIdentifier) {
+            TestSource source = testIdentifier.getSource().orElse(null);
+            if (source instanceof MethodSource) {
+                MethodSource method = (MethodSource) source;
+                String name = method.getClassName() + "#" + method.getMethodName();
+                return testIdentifier.getDisplayName().startsWith(method.getMethodName() + "(")
+                        ? name : name + " " + testIdentifier.getDisplayName();
+            }
+            if (source instanceof ClassSource) {
+                return ((ClassSource) source).getClassName();
+            }
+            return testIdentifier.getDisplayName();
+        }
+    }
+}
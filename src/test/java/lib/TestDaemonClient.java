@@ -0,0 +1,87 @@
+package lib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Sends test classes, methods or packages to a running TestDaemon and prints the results as they come.
+// Uses nothing but the JDK, so it starts in a few milliseconds with only the test classes on the classpath:
+//   java -cp target/test-classes lib.TestDaemonClient [-Dname=value ...] <class>[#<method>] | <package> ...
+//   java -cp target/test-classes lib.TestDaemonClient --stop
+// -D arguments are set as system properties in the daemon for this run only. Exits with 1 when a test failed.
+public class TestDaemonClient {
+
+    public static void main(String[] args) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        List<String> selectors = new ArrayList<>();
+        boolean stop = false;
+        for (String arg : args) {
+            if (arg.equals("--stop")) {
+                stop = true;
+            } else if (arg.startsWith("-D") && arg.indexOf('=') > 2) {
+                properties.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                selectors.add(arg);
+            }
+        }
+        if (selectors.isEmpty() && !stop) {
+            System.err.println("Usage: java -cp target/test-classes lib.TestDaemonClient [-Dname=value ...] "
+                    + "<class>[#<method>] | <package> ... | --stop");
+            System.exit(2);
+        }
+        System.exit(run(Integer.getInteger("daemon.port", TestDaemon.DEFAULT_PORT), properties, stop ? null : selectors));
+    }
+
+    // the exit code: 0 when every test passed, 1 when one failed, 2 when there is no daemon to run them
+    public static int run(int port, Map<String, String> properties, List<String> selectors) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            out.writeInt(TestDaemon.MAGIC);
+            out.writeInt(properties.size());
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                out.writeUTF(property.getKey());
+                out.writeUTF(property.getValue());
+            }
+            if (selectors == null) {
+                out.writeInt(TestDaemon.STOP);
+            } else {
+                out.writeInt(selectors.size());
+                for (String selector : selectors) {
+                    out.writeUTF(selector);
+                }
+            }
+            out.flush();
+
+            while (true) {
+                byte type = in.readByte();
+                String text = in.readUTF();
+                if (type == TestDaemon.DONE) {
+                    System.out.println(text);
+                    return in.readInt();
+                }
+                if (type == TestDaemon.OUTPUT) {
+                    System.out.print(text);
+                } else {
+                    System.out.println(text);
+                }
+            }
+        } catch (ConnectException e) {
+            System.err.println("No test daemon on 127.0.0.1:" + port + ", start one with: java -cp <test classpath> "
+                    + "lib.TestDaemon");
+            return 2;
+        } catch (IOException e) {
+            System.err.println("Lost the test daemon on 127.0.0.1:" + port + ": " + e);
+            return 2;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package lib;
+
+import io.restassured.response.Response;
+
+// the UserDeleteTest flows: a protected user cannot be deleted, a deleted user is gone
+public class UserDeleteScenario implements LoadScenario {
+
+    @Override
+    public void run(ApiCoreRequests apiCoreRequests, String baseUrl) {
+        // PROTECTED USER
+        Session sharedSession = ScenarioSteps.login(apiCoreRequests, baseUrl, SharedResources.SHARED_TEST_USER, "1234");
+        Response responseProtected = apiCoreRequests.makeDeleteRequest(
+                ScenarioSteps.userUrl(baseUrl, sharedSession.getUserId()), sharedSession.getToken(), sharedSession.getCookie());
+        Assertions.assertHtmlBodyTextEquals(responseProtected, "Please, do not delete test users with ID 1, 2, 3, 4 or 5.");
+
+        // DELETE AND GET
+        Session session = ScenarioSteps.registerAndLogin(apiCoreRequests, baseUrl);
+        ScenarioSteps.delete(apiCoreRequests, baseUrl, session);
+        Response responseDeleted = apiCoreRequests.makeGetRequest(ScenarioSteps.userUrl(baseUrl, session.getUserId()),
+                session.getToken(), session.getCookie());
+        Assertions.assertHtmlBodyTextEquals(responseDeleted, "User not found");
+    }
+}
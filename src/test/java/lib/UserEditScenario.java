@@ -0,0 +1,49 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// the UserEditTest flows on a user of its own
+public class UserEditScenario implements LoadScenario {
+
+    @Override
+    public void run(ApiCoreRequests apiCoreRequests, String baseUrl) {
+        Session session = ScenarioSteps.registerAndLogin(apiCoreRequests, baseUrl);
+        String userUrl = ScenarioSteps.userUrl(baseUrl, session.getUserId());
+        try {
+            // NOT AUTHORIZED
+            Map<String, String> editData = new HashMap<>();
+            editData.put("firstName", "Changed Name");
+            Response responseNotAuth = apiCoreRequests.makePutRequest(userUrl, editData);
+            Assertions.assertResponseCodeEquals(responseNotAuth, 400);
+            Assertions.assertResponseTextEquals(responseNotAuth, "Auth token not supplied");
+
+            // EDIT AND GET
+            Response responseEdit = apiCoreRequests.makePutRequestWithTokenAndCookie(userUrl,
+                    session.getToken(), session.getCookie(), editData);
+            Assertions.assertResponseCodeEquals(responseEdit, 200);
+            Response responseUserData = apiCoreRequests.makeGetRequest(userUrl, session.getToken(), session.getCookie());
+            Assertions.assertJsonByName(responseUserData, "firstName", "Changed Name");
+
+            // WRONG EMAIL
+            Map<String, String> wrongEmail = new HashMap<>();
+            wrongEmail.put("email", "wrongemailexample.com");
+            Response responseWrongEmail = apiCoreRequests.makePutRequestWithTokenAndCookie(userUrl,
+                    session.getToken(), session.getCookie(), wrongEmail);
+            Assertions.assertResponseCodeEquals(responseWrongEmail, 400);
+            Assertions.assertResponseTextEquals(responseWrongEmail, "Invalid email format");
+
+            // SHORT NAME
+            Map<String, String> shortName = new HashMap<>();
+            shortName.put("firstName", "1");
+            Response responseShortName = apiCoreRequests.makePutRequestWithTokenAndCookie(userUrl,
+                    session.getToken(), session.getCookie(), shortName);
+            Assertions.assertResponseCodeEquals(responseShortName, 400);
+            Assertions.assertJsonByName(responseShortName, "error", "Too short value for field firstName");
+        } finally {
+            ScenarioSteps.delete(apiCoreRequests, baseUrl, session);
+        }
+    }
+}
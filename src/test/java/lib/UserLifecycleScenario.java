@@ -0,0 +1,44 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class UserLifecycleScenario implements LoadScenario {
+
+    @Override
+    public void run(ApiCoreRequests apiCoreRequests, String baseUrl) {
+        // REGISTER
+        Map<String, String> userData = DataGenerate.getRegistrationData();
+        Response responseCreateAuth = apiCoreRequests.makePostRequest(baseUrl + "/api/user/", userData);
+        expectStatus(responseCreateAuth, 200, "register");
+        String userUrl = baseUrl + "/api/user/" + JsonView.of(responseCreateAuth).getInt("id");
+
+        // LOGIN
+        Map<String, String> authData = new HashMap<>();
+        authData.put("email", userData.get("email"));
+        authData.put("password", userData.get("password"));
+        Response responseGetAuth = apiCoreRequests.makePostRequest(baseUrl + "/api/user/login", authData);
+        expectStatus(responseGetAuth, 200, "login");
+        String token = responseGetAuth.getHeader("x-csrf-token");
+        String cookie = responseGetAuth.getCookie("auth_sid");
+
+        // EDIT
+        Map<String, String> editData = new HashMap<>();
+        editData.put("firstName", "Changed Name");
+        expectStatus(apiCoreRequests.makePutRequestWithTokenAndCookie(userUrl, token, cookie, editData), 200, "edit");
+
+        // GET
+        expectStatus(apiCoreRequests.makeGetRequest(userUrl, token, cookie), 200, "get");
+
+        // DELETE
+        expectStatus(apiCoreRequests.makeDeleteRequest(userUrl, token, cookie), 200, "delete");
+    }
+
+    private static void expectStatus(Response Response, int expectedStatusCode, String step) {
+        if (Response.statusCode() != expectedStatusCode) {
+            throw new IllegalStateException(step + " returned " + Response.statusCode() + ": " + Response.asString());
+        }
+    }
+}
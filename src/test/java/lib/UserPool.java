@@ -0,0 +1,201 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class UserPool {
+    private static final String USER_URL = "/user/";
+    private static final String LOGIN_URL = "/user/login";
+    private static final UserPool INSTANCE = new UserPool(
+            Integer.getInteger("userPool.size", 8),
+            Integer.getInteger("userPool.lowWater", 2));
+
+    private final ConcurrentLinkedQueue<PooledUser> ready = new ConcurrentLinkedQueue<>();
+    // users that are ready or being created, so concurrent refills never overshoot the target size
+    private final AtomicInteger available = new AtomicInteger();
+    // leased users by the test holding them, until it releases or destroys them
+    private final ConcurrentHashMap<PooledUser, String> leases = new ConcurrentHashMap<>();
+    private final ApiCoreRequests apiCoreRequests = new ApiCoreRequests();
+    private final AsyncApiCoreRequests asyncApiCoreRequests = new AsyncApiCoreRequests();
+    private final int size;
+    private final int lowWater;
+    private volatile boolean closed;
+
+    public UserPool(int size, int lowWater) {
+        this.size = size;
+        this.lowWater = Math.min(lowWater, size);
+    }
+
+    public static UserPool getInstance() {
+        return INSTANCE;
+    }
+
+    public void warmUp() {
+        refill();
+    }
+
+    public PooledUser lease() {
+        if (pinned()) {
+            return create();
+        }
+        PooledUser user = ready.poll();
+        if (user == null) {
+            user = create();
+        } else {
+            available.decrementAndGet();
+        }
+        if (available.get() < lowWater) {
+            refill();
+        }
+        return leased(user, TestContext.current());
+    }
+
+    // lets a test that needs several users wait for all of them at once instead of creating them one by one
+    public CompletableFuture<PooledUser> leaseAsync() {
+        TestContext test = TestContext.current();
+        if (pinned()) {
+            return CompletableFuture.completedFuture(leased(create(), test));
+        }
+        PooledUser user = ready.poll();
+        CompletableFuture<PooledUser> lease;
+        if (user == null) {
+            lease = createAsync();
+        } else {
+            available.decrementAndGet();
+            lease = CompletableFuture.completedFuture(user);
+        }
+        if (available.get() < lowWater) {
+            refill();
+        }
+        return lease.thenApply(leased -> leased(leased, test));
+    }
+
+    public void release(PooledUser user) {
+        leases.remove(user);
+        if (pinned()) {
+            destroy(user);
+            return;
+        }
+        if (available.incrementAndGet() > size) {
+            available.decrementAndGet();
+            destroy(user);
+            return;
+        }
+        ready.offer(user);
+    }
+
+    public void destroy(PooledUser user) {
+        leases.remove(user);
+        apiCoreRequests.makeDeleteRequest(USER_URL + user.getId(), user.getSession());
+        SessionPool.getInstance().invalidate(user.getSession());
+    }
+
+    // a test that stopped half way never gave its users back; whatever it did to them, they are deleted with the rest
+    // of its users instead of going to the next test
+    public void abandonLeases(String owner) {
+        for (Map.Entry<PooledUser, String> lease : leases.entrySet()) {
+            if (owner.equals(lease.getValue()) && leases.remove(lease.getKey(), owner)) {
+                UserRegistry.getInstance().reassign(lease.getKey().getId(), ApiClient.getTargetBaseUrl(), owner);
+            }
+        }
+    }
+
+    public void shutdown() {
+        closed = true;
+
+        List<CompletableFuture<Void>> deletions = new ArrayList<>();
+        for (PooledUser user = ready.poll(); user != null; user = ready.poll()) {
+            PooledUser idle = user;
+            deletions.add(CompletableFuture.runAsync(() -> destroy(idle)));
+        }
+        try {
+            CompletableFuture.allOf(deletions.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // idle users that could not be deleted are left for the next run, they do not affect results
+        }
+    }
+
+    private void refill() {
+        int missing;
+        while (!closed && !pinned() && (missing = size - available.get()) > 0) {
+            if (!available.compareAndSet(size - missing, size)) {
+                continue;
+            }
+            for (int i = 0; i < missing; i++) {
+                createAsync().whenComplete((user, failure) -> {
+                    if (failure != null) {
+                        available.decrementAndGet();
+                    } else if (closed) {
+                        available.decrementAndGet();
+                        destroy(user);
+                    } else {
+                        ready.offer(user);
+                    }
+                });
+            }
+        }
+    }
+
+    private PooledUser leased(PooledUser user, TestContext test) {
+        if (test != null) {
+            leases.put(user, test.getTestId());
+        }
+        return user;
+    }
+
+    // a cassette keeps each test's exchanges together, so users are created and deleted inside the test using them
+    private static boolean pinned() {
+        return CassetteFilter.getInstance().isActive();
+    }
+
+    private PooledUser create() {
+        Map<String, String> userData = DataGenerate.getRegistrationData();
+        Response responseCreateAuth = apiCoreRequests.makePostRequest(USER_URL, userData);
+        if (responseCreateAuth.statusCode() != 200) {
+            throw new IllegalStateException("Could not create pooled user: "
+                    + responseCreateAuth.statusCode() + " " + responseCreateAuth.asString());
+        }
+        int id = JsonView.of(responseCreateAuth).getInt("id");
+
+        Session session = SessionPool.getInstance().getSession(userData.get("email"), userData.get("password"));
+        // pooled users outlive the test that happened to create them
+        UserRegistry.getInstance().track(id, ApiClient.getTargetBaseUrl(), userData.get("email"),
+                userData.get("password"), session, null);
+        return new PooledUser(id, userData, session);
+    }
+
+    private CompletableFuture<PooledUser> createAsync() {
+        Map<String, String> userData = DataGenerate.getRegistrationData();
+        Map<String, String> authData = new HashMap<>();
+        authData.put("email", userData.get("email"));
+        authData.put("password", userData.get("password"));
+
+        return asyncApiCoreRequests.makePostRequest(USER_URL, userData)
+                .thenCompose(responseCreateAuth -> {
+                    if (responseCreateAuth.statusCode() != 200) {
+                        throw new IllegalStateException("Could not create pooled user: "
+                                + responseCreateAuth.statusCode() + " " + responseCreateAuth.asString());
+                    }
+                    int id = JsonView.of(responseCreateAuth).getInt("id");
+                    UserRegistry.getInstance().track(id, ApiClient.getTargetBaseUrl(), authData.get("email"),
+                            authData.get("password"), null, null);
+                    return asyncApiCoreRequests.makePostRequest(LOGIN_URL, authData)
+                            .thenApply(responseGetAuth -> {
+                                Session session = SessionPool.toSession(
+                                        authData.get("email"), authData.get("password"), responseGetAuth);
+                                UserRegistry.getInstance().track(id, ApiClient.getTargetBaseUrl(),
+                                        authData.get("email"), authData.get("password"), session, null);
+                                return new PooledUser(id, userData, session);
+                            });
+                });
+    }
+}
@@ -0,0 +1,45 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// the UserRegisterTest flows: rejected registrations, then one that succeeds
+public class UserRegisterScenario implements LoadScenario {
+
+    @Override
+    public void run(ApiCoreRequests apiCoreRequests, String baseUrl) {
+        String registerUrl = baseUrl + "/api/user/";
+
+        // EXISTING EMAIL
+        Map<String, String> userData = new HashMap<>();
+        userData.put("email", SharedResources.SHARED_TEST_USER);
+        Response responseExisting = apiCoreRequests.makePostRequest(registerUrl, DataGenerate.getRegistrationData(userData));
+        Assertions.assertResponseCodeEquals(responseExisting, 400);
+        Assertions.assertResponseTextEquals(responseExisting,
+                "Users with email '" + SharedResources.SHARED_TEST_USER + "' already exists");
+
+        // INCORRECT EMAIL
+        userData.put("email", "vinkotovexample.com");
+        Response responseIncorrect = apiCoreRequests.makePostRequest(registerUrl, DataGenerate.getRegistrationData(userData));
+        Assertions.assertResponseCodeEquals(responseIncorrect, 400);
+        Assertions.assertResponseTextEquals(responseIncorrect, "Invalid email format");
+
+        // SHORT NAME
+        Map<String, String> shortName = new HashMap<>();
+        shortName.put("firstName", "a");
+        Response responseShort = apiCoreRequests.makePostRequest(registerUrl, DataGenerate.getRegistrationData(shortName));
+        Assertions.assertResponseCodeEquals(responseShort, 400);
+        Assertions.assertResponseTextEquals(responseShort, "The value of 'firstName' field is too short");
+
+        // MISSING FIELD
+        Response responseMissing = apiCoreRequests.makePostRequest(registerUrl,
+                DataGenerate.getRegistrationDataWithoutOneField("username"));
+        Assertions.assertResponseCodeEquals(responseMissing, 400);
+        Assertions.assertResponseTextEquals(responseMissing, "The following required params are missed: username");
+
+        // SUCCESS
+        ScenarioSteps.delete(apiCoreRequests, baseUrl, ScenarioSteps.registerAndLogin(apiCoreRequests, baseUrl));
+    }
+}
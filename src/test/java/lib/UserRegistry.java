@@ -0,0 +1,298 @@
+package lib;
+
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Remembers every user a test creates through ApiClient, and on which server, so the ones it leaves behind can be
+// deleted afterwards.
+public class UserRegistry implements ApiFilter {
+    private static final String USER_URL = "/api/user/";
+    private static final String LOGIN_URL = "/api/user/login";
+    private static final String LOGIN_ERROR = "Invalid username/password supplied";
+    private static final int MAX_PROTECTED_ID = 5;
+    private static final UserRegistry INSTANCE = new UserRegistry(
+            Integer.getInteger("userRegistry.threads", 4),
+            Integer.getInteger("userRegistry.attempts", 3));
+
+    // keyed by the user's URL, the same id can exist on two servers
+    private final ConcurrentHashMap<String, TrackedUser> users = new ConcurrentHashMap<>();
+    // the users a login or a DELETE refers to, found without going through every tracked user
+    private final ConcurrentHashMap<String, TrackedUser> byEmail = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TrackedUser> bySession = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> reaping = new ConcurrentHashMap<>();
+    private final ApiCoreRequests apiCoreRequests = new ApiCoreRequests();
+    private final ExecutorService reaper;
+    private final int attempts;
+
+    public UserRegistry(int threads, int attempts) {
+        this.attempts = attempts;
+        this.reaper = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static UserRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public CompletableFuture<Response> filter(ApiRequest request, FilterChain chain) {
+        String path = PathTemplate.of(request.getUri());
+        switch (request.getMethod()) {
+            case "POST":
+                TestContext test = request.getTestContext();
+                // load, soak and fuzz runs create users on servers of their own and clean up after themselves
+                if (path.endsWith("/user") && test != null) {
+                    String baseUrl = baseUrlOf(request.getUri());
+                    return chain.proceed(request).thenApply(response -> {
+                        // a fuzzer's payload can be accepted without the server returning an id
+                        if (response.statusCode() == 200 && baseUrl != null && JsonView.of(response).has("id")) {
+                            JsonView created = JsonView.of(response);
+                            JsonView userData = JsonView.parse(String.valueOf(request.getBody()));
+                            track(created.getInt("id"), baseUrl, userData.getString("email"),
+                                    userData.getString("password"), null, test.getTestId());
+                        }
+                        return response;
+                    });
+                }
+                if (path.endsWith("/user/login")) {
+                    return chain.proceed(request).thenApply(response -> {
+                        if (response.statusCode() == 200) {
+                            attachSession(response, JsonView.parse(String.valueOf(request.getBody())));
+                        }
+                        return response;
+                    });
+                }
+                return chain.proceed(request);
+            case "DELETE":
+                // the API deletes the user the session belongs to, whatever id is in the path
+                String cookie = request.getCookie("auth_sid");
+                return chain.proceed(request).thenApply(response -> {
+                    TrackedUser deleted = cookie == null ? null : bySession.get(cookie);
+                    if (response.statusCode() == 200 && deleted != null) {
+                        forget(deleted);
+                    }
+                    return response;
+                });
+            default:
+                return chain.proceed(request);
+        }
+    }
+
+    // baseUrl is the server the user lives on, e.g. ApiClient.getTargetBaseUrl()
+    public void track(int id, String baseUrl, String email, String password, Session session, String owner) {
+        // a replayed run never created anything on a server
+        if (id <= MAX_PROTECTED_ID || CassetteFilter.getInstance().isReplaying()) {
+            return;
+        }
+        TrackedUser user = new TrackedUser(id, baseUrl, email, password, session, owner);
+        TrackedUser replaced = users.put(user.key, user);
+        if (replaced != null) {
+            unindex(replaced);
+        }
+        if (email != null) {
+            byEmail.put(email, user);
+        }
+        if (session != null) {
+            bySession.put(session.getCookie(), user);
+        }
+    }
+
+    // hands a tracked user to another owner, one that is no longer tracked has been deleted already
+    public void reassign(int id, String baseUrl, String owner) {
+        TrackedUser user = users.get(baseUrl + USER_URL + id);
+        if (user != null) {
+            track(id, baseUrl, user.email, user.password, user.session, owner);
+        }
+    }
+
+    private void forget(TrackedUser user) {
+        if (users.remove(user.key, user)) {
+            unindex(user);
+        }
+    }
+
+    private void unindex(TrackedUser user) {
+        if (user.email != null) {
+            byEmail.remove(user.email, user);
+        }
+        Session session = user.session;
+        if (session != null) {
+            bySession.remove(session.getCookie(), user);
+        }
+    }
+
+    // hands the users created by one test to the reaper without making the test wait for the deletes
+    public void reap(String owner) {
+        for (TrackedUser user : users.values()) {
+            if (owner.equals(user.owner)) {
+                schedule(user);
+            }
+        }
+    }
+
+    public List<String> reapAll(long timeout, TimeUnit unit) {
+        List<CompletableFuture<Boolean>> deletions = new ArrayList<>();
+        for (TrackedUser user : users.values()) {
+            deletions.add(schedule(user));
+        }
+        try {
+            CompletableFuture.allOf(deletions.toArray(new CompletableFuture<?>[0])).get(timeout, unit);
+        } catch (Exception e) {
+            // whatever is still registered after the timeout is reported as leaked below
+        }
+        reaper.shutdownNow();
+
+        List<String> leaked = new ArrayList<>();
+        for (TrackedUser user : users.values()) {
+            leaked.add(user.key + " " + user.email);
+        }
+        return leaked;
+    }
+
+    public void shutdown() {
+        writeReport(Paths.get(System.getProperty("userRegistry.report", "target/leaked-users.txt")),
+                reapAll(60, TimeUnit.SECONDS));
+    }
+
+    public void writeReport(Path file, List<String> leaked) {
+        try {
+            if (leaked.isEmpty()) {
+                // a report left over from an earlier run must not be mistaken for this one
+                Files.deleteIfExists(file);
+                return;
+            }
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, leaked, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write leaked test users to " + file, e);
+        }
+    }
+
+    private CompletableFuture<Boolean> schedule(TrackedUser user) {
+        CompletableFuture<Boolean> running = reaping.get(user.key);
+        if (running != null) {
+            return running;
+        }
+        CompletableFuture<Boolean> deletion = new CompletableFuture<>();
+        running = reaping.putIfAbsent(user.key, deletion);
+        if (running != null) {
+            return running;
+        }
+        // only started once it is registered, so a fast delete can not remove the entry before it is put
+        try {
+            CompletableFuture.supplyAsync(() -> delete(user), reaper).whenComplete((deleted, failure) -> {
+                reaping.remove(user.key, deletion);
+                if (failure != null) {
+                    deletion.completeExceptionally(failure);
+                } else {
+                    deletion.complete(deleted);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the reaper has already shut down
+            reaping.remove(user.key, deletion);
+            deletion.completeExceptionally(e);
+        }
+        return deletion;
+    }
+
+    // requests routed through a fault proxy created the user on the target behind it
+    private static String baseUrlOf(String uri) {
+        int api = uri.indexOf("/api/");
+        return api < 0 ? null : FaultProxy.targetOf(uri.substring(0, api));
+    }
+
+    private boolean delete(TrackedUser user) {
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            if (!users.containsKey(user.key)) {
+                return true;
+            }
+            try {
+                Session session = user.session != null ? user.session : login(user);
+                Response responseDelete = apiCoreRequests.makeDeleteRequest(user.key, session);
+                SessionPool.getInstance().invalidate(session);
+                if (responseDelete.statusCode() == 200) {
+                    forget(user);
+                    return true;
+                }
+            } catch (IllegalStateException e) {
+                // the account can no longer log in, so there is nothing left to delete
+                if (e.getMessage() != null && e.getMessage().contains(LOGIN_ERROR)) {
+                    forget(user);
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                // connection problems are retried like any other failed delete
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(100L << attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // on the server the user was created on, SessionPool only knows ApiClient's
+    private Session login(TrackedUser user) {
+        Map<String, String> authData = new HashMap<>();
+        authData.put("email", user.email);
+        authData.put("password", user.password);
+        return SessionPool.toSession(user.email, user.password,
+                apiCoreRequests.makePostRequest(user.baseUrl + LOGIN_URL, authData));
+    }
+
+    private void attachSession(Response responseGetAuth, JsonView authData) {
+        String email = authData.getString("email");
+        TrackedUser user = email == null ? null : byEmail.get(email);
+        if (user != null && user.session == null) {
+            try {
+                Session session = SessionPool.toSession(email, authData.getString("password"), responseGetAuth);
+                user.session = session;
+                bySession.put(session.getCookie(), user);
+            } catch (IllegalStateException e) {
+                // not a usable login, the reaper will log in itself
+            }
+        }
+    }
+
+    private static class TrackedUser {
+        private final String key;
+        private final String baseUrl;
+        private final String email;
+        private final String password;
+        private final String owner;
+        private volatile Session session;
+
+        TrackedUser(int id, String baseUrl, String email, String password, Session session, String owner) {
+            this.key = baseUrl + USER_URL + id;
+            this.baseUrl = baseUrl;
+            this.email = email;
+            this.password = password;
+            this.session = session;
+            this.owner = owner;
+        }
+    }
+}
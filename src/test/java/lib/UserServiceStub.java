@@ -0,0 +1,345 @@
+package lib;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class UserServiceStub implements AutoCloseable {
+    private static final String[] USER_FIELDS = {"email", "password", "username", "firstName", "lastName"};
+    private static final String[] NAME_FIELDS = {"username", "firstName", "lastName"};
+    private static final int PROTECTED_USERS = 5;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<Integer, Map<String, String>> users = new ConcurrentHashMap<>();
+    private final Map<String, Integer> usersByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Integer> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> tokens = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private UserServiceStub(int port) throws IOException {
+        server = LocalHttpServer.create(port);
+        executor = Threads.newPerTaskExecutor("user-service-stub");
+        server.setExecutor(executor);
+        server.createContext("/api/user", this::handle);
+
+        seed("lego@example.com", "1234", "Lego", "Lego", "Lego");
+        seed("vinkotov@example.com", "1234", "Vitaliy", "Vitalii", "Kotov");
+        seed("learnqa3@example.com", "1234", "learnqa3", "learnqa3", "learnqa3");
+        seed("learnqa4@example.com", "1234", "learnqa4", "learnqa4", "learnqa4");
+        seed("learnqa5@example.com", "1234", "learnqa5", "learnqa5", "learnqa5");
+    }
+
+    public static UserServiceStub start() {
+        return start(0);
+    }
+
+    public static UserServiceStub start(int port) {
+        try {
+            UserServiceStub stub = new UserServiceStub(port);
+            stub.server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start user service stub", e);
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void seed(String email, String password, String username, String firstName, String lastName) {
+        Map<String, String> user = new ConcurrentHashMap<>();
+        user.put("email", email);
+        user.put("password", password);
+        user.put("username", username);
+        user.put("firstName", firstName);
+        user.put("lastName", lastName);
+        register(user);
+    }
+
+    private int register(Map<String, String> user) {
+        int id = ids.incrementAndGet();
+        user.put("id", String.valueOf(id));
+        users.put(id, user);
+        usersByEmail.put(user.get("email"), id);
+        return id;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            while (path.length() > 1 && path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            String method = exchange.getRequestMethod();
+
+            if (path.equals("/api/user") && method.equals("POST")) {
+                createUser(exchange);
+            } else if (path.equals("/api/user/login") && method.equals("POST")) {
+                login(exchange);
+            } else if (path.equals("/api/user/auth") && method.equals("GET")) {
+                checkAuth(exchange);
+            } else if (path.matches("/api/user/\\d+")) {
+                int id = Integer.parseInt(path.substring("/api/user/".length()));
+                switch (method) {
+                    case "GET":
+                        getUser(exchange, id);
+                        break;
+                    case "PUT":
+                        editUser(exchange, id);
+                        break;
+                    case "DELETE":
+                        deleteUser(exchange, id);
+                        break;
+                    default:
+                        sendText(exchange, 405, "Method not allowed");
+                }
+            } else {
+                sendText(exchange, 404, "Not found");
+            }
+        } catch (RuntimeException e) {
+            sendText(exchange, 500, "Internal error: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void createUser(HttpExchange exchange) throws IOException {
+        Map<String, String> body = readBody(exchange);
+        for (String field : USER_FIELDS) {
+            if (!body.containsKey(field)) {
+                sendText(exchange, 400, "The following required params are missed: " + field);
+                return;
+            }
+        }
+        if (!isValidEmail(body.get("email"))) {
+            sendText(exchange, 400, "Invalid email format");
+            return;
+        }
+        for (String field : NAME_FIELDS) {
+            int length = body.get(field).length();
+            if (length < 2 || length > 250) {
+                sendText(exchange, 400, "The value of '" + field + "' field is too " + (length < 2 ? "short" : "long"));
+                return;
+            }
+        }
+        Map<String, String> user = new ConcurrentHashMap<>();
+        for (String field : USER_FIELDS) {
+            user.put(field, body.get(field));
+        }
+        synchronized (usersByEmail) {
+            if (usersByEmail.containsKey(user.get("email"))) {
+                sendText(exchange, 400, "Users with email '" + user.get("email") + "' already exists");
+                return;
+            }
+            sendJson(exchange, 200, "{\"id\":\"" + register(user) + "\"}");
+        }
+    }
+
+    private void login(HttpExchange exchange) throws IOException {
+        Map<String, String> body = readBody(exchange);
+        Integer id = usersByEmail.get(String.valueOf(body.get("email")));
+        Map<String, String> user = id == null ? null : users.get(id);
+        if (user == null || !user.get("password").equals(body.get("password"))) {
+            sendText(exchange, 400, "Invalid username/password supplied");
+            return;
+        }
+        String sid = UUID.randomUUID().toString().replace("-", "");
+        String token = UUID.randomUUID().toString().replace("-", "");
+        sessions.put(sid, id);
+        tokens.put(token, id);
+
+        exchange.getResponseHeaders().add("x-csrf-token", token);
+        exchange.getResponseHeaders().add("Set-Cookie", "auth_sid=" + sid + "; path=/");
+        sendJson(exchange, 200, "{\"user_id\":" + id + "}");
+    }
+
+    private void checkAuth(HttpExchange exchange) throws IOException {
+        Integer id = authorizedUser(exchange);
+        sendJson(exchange, 200, "{\"user_id\":" + (id == null ? 0 : id) + "}");
+    }
+
+    private void getUser(HttpExchange exchange, int id) throws IOException {
+        Map<String, String> user = users.get(id);
+        if (user == null) {
+            sendText(exchange, 404, "User not found");
+            return;
+        }
+        Integer authorized = authorizedUser(exchange);
+        if (authorized != null && authorized == id) {
+            sendJson(exchange, 200, "{\"id\":\"" + id + "\",\"username\":" + quote(user.get("username"))
+                    + ",\"email\":" + quote(user.get("email"))
+                    + ",\"firstName\":" + quote(user.get("firstName"))
+                    + ",\"lastName\":" + quote(user.get("lastName")) + "}");
+        } else {
+            sendJson(exchange, 200, "{\"username\":" + quote(user.get("username")) + "}");
+        }
+    }
+
+    private void editUser(HttpExchange exchange, int id) throws IOException {
+        Integer authorized = authorizedUser(exchange);
+        if (authorized == null) {
+            sendText(exchange, 400, "Auth token not supplied");
+            return;
+        }
+        if (authorized <= PROTECTED_USERS) {
+            sendText(exchange, 400, "Please, do not edit test users with ID 1, 2, 3, 4 or 5.");
+            return;
+        }
+        Map<String, String> body = readBody(exchange);
+        if (body.containsKey("email") && !isValidEmail(body.get("email"))) {
+            sendText(exchange, 400, "Invalid email format");
+            return;
+        }
+        for (String field : NAME_FIELDS) {
+            if (body.containsKey(field) && body.get(field).length() < 2) {
+                sendJson(exchange, 400, "{\"error\":\"Too short value for field " + field + "\"}");
+                return;
+            }
+        }
+        // like the real service, the edit is applied to the authorized user whatever id is in the path
+        Map<String, String> user = users.get(authorized);
+        if (user == null) {
+            sendText(exchange, 404, "User not found");
+            return;
+        }
+        synchronized (usersByEmail) {
+            if (body.containsKey("email")) {
+                usersByEmail.remove(user.get("email"));
+                usersByEmail.put(body.get("email"), authorized);
+            }
+            for (String field : USER_FIELDS) {
+                if (body.containsKey(field)) {
+                    user.put(field, body.get(field));
+                }
+            }
+        }
+        sendJson(exchange, 200, "{}");
+    }
+
+    private void deleteUser(HttpExchange exchange, int id) throws IOException {
+        Integer authorized = authorizedUser(exchange);
+        if (authorized == null) {
+            sendText(exchange, 400, "Auth token not supplied");
+            return;
+        }
+        if (authorized <= PROTECTED_USERS) {
+            sendText(exchange, 400, "Please, do not delete test users with ID 1, 2, 3, 4 or 5.");
+            return;
+        }
+        // like the real service, the authorized user is deleted whatever id is in the path
+        Map<String, String> user = users.remove(authorized);
+        if (user != null) {
+            usersByEmail.remove(user.get("email"));
+        }
+        sendText(exchange, 200, "");
+    }
+
+    private static boolean isValidEmail(String email) {
+        int at = email.indexOf('@');
+        return at > 0 && at == email.lastIndexOf('@') && at < email.length() - 1;
+    }
+
+    private Integer authorizedUser(HttpExchange exchange) {
+        String token = exchange.getRequestHeaders().getFirst("x-csrf-token");
+        String sid = cookie(exchange, "auth_sid");
+        if (token == null || sid == null) {
+            return null;
+        }
+        Integer byToken = tokens.get(token);
+        Integer bySession = sessions.get(sid);
+        return byToken != null && byToken.equals(bySession) ? byToken : null;
+    }
+
+    private static String cookie(HttpExchange exchange, String name) {
+        String header = exchange.getRequestHeaders().getFirst("Cookie");
+        if (header == null) {
+            return null;
+        }
+        for (String pair : header.split(";")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).trim().equals(name)) {
+                return pair.substring(separator + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream input = exchange.getRequestBody()) {
+            body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Map<String, String> values = new HashMap<>();
+        if (body.trim().startsWith("{")) {
+            JsonView json = JsonView.parse(body);
+            for (String field : USER_FIELDS) {
+                // a null value is a missing field, like a form field that was never sent
+                if (json.get(field) != null) {
+                    values.put(field, json.getString(field));
+                }
+            }
+            return values;
+        }
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char current = value.charAt(i);
+            if (current == '"' || current == '\\') {
+                quoted.append('\\').append(current);
+            } else if (current < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) current));
+            } else {
+                quoted.append(current);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "application/json", body);
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "text/html; charset=utf-8", body);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+    }
+}
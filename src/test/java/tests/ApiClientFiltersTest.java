@@ -0,0 +1,34 @@
+package tests;
+
+import io.restassured.response.Response;
+import lib.Assertions;
+import lib.AsyncApiCoreRequests;
+import lib.BaseTestCase;
+import lib.LatencyBudgets;
+import lib.MetricsFilter;
+import lib.SharedResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ApiClientFiltersTest extends BaseTestCase {
+
+    @Test
+    @ResourceLock(value = SharedResources.SHARED_TEST_USER, mode = ResourceAccessMode.READ)
+    public void testAsyncGetIsMeasuredLikeBlockingGet(){
+        MetricsFilter.EndpointMetrics endpoint = MetricsFilter.getInstance().getEndpoints().get("GET /api/user/{id}");
+        long measuredBefore = endpoint == null ? 0 : endpoint.getLatencyMicros().getCount();
+
+        // a URL of its own, a cached response never reaches the metrics
+        Response responseUserData = new AsyncApiCoreRequests()
+                .makeGetRequest("/user/2?measured=" + System.nanoTime(), null, null).join();
+
+        Assertions.assertJsonHasField(responseUserData, "username");
+        assertEquals("GET /api/user/{id}", LatencyBudgets.getInstance().callOf(responseUserData).getEndpoint());
+        endpoint = MetricsFilter.getInstance().getEndpoints().get("GET /api/user/{id}");
+        assertTrue(endpoint.getLatencyMicros().getCount() > measuredBefore, "Async call is missing from the metrics");
+    }
+}
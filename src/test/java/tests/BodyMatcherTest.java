@@ -0,0 +1,81 @@
+package tests;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import lib.BaseTestCase;
+import lib.BodyMatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BodyMatcherTest extends BaseTestCase {
+
+    // whatever htmlPath() read from these bodies still matches, it may only differ in whitespace
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "User not found",
+            "  Please,\n\tdo   not\r\n delete  ",
+            "<html><body>\n  User   not\n\tfound \n</body></html>",
+            "<html><body>Tom &amp; Jerry &lt;3 &quot;x&quot; &#39;y&#39; &gt;</body></html>",
+            "<html><head><title>t</title></head><body class=\"main\" id=b>Hello world</body></html>",
+            "<html>\n<body onload='x()'>\n  Tom &amp;  Jerry\n</body>\n</html>",
+            "<HTML><BODY>Upper</BODY></HTML>",
+            "<html><body><p>User not found</p></body></html>",
+            "<html><body></body></html>",
+            "<html><body>\u041f\u0440\u0438\u0432\u0435\u0442 \u00fc \u65e5\u672c &lt;\ud83d\ude00&gt;</body></html>"})
+    public void testHtmlBodyTextMatchesWhatHtmlPathRead(String body){
+        String htmlPathText = htmlResponse(body).htmlPath().getString("html.body");
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(BodyMatcher.htmlBodyTextEquals(bytes, htmlPathText), "No match for '" + htmlPathText + "'");
+        assertEquals(htmlPathText.trim().replaceAll("[ \t\n\r]+", " "), BodyMatcher.htmlBodyText(bytes));
+    }
+
+    @Test
+    public void testExpectedWhitespaceIsCollapsedLikeTheBody(){
+        byte[] body = "<html><body>User   not\nfound</body></html>".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(BodyMatcher.htmlBodyTextEquals(body, "User  not found"));
+        assertTrue(BodyMatcher.htmlBodyTextEquals(body, "\n User not\t\tfound "));
+        assertFalse(BodyMatcher.htmlBodyTextEquals(body, "Usernot found"));
+        assertFalse(BodyMatcher.htmlBodyTextEquals(body, "User not found."));
+    }
+
+    // htmlPath() read "null" or "nullnull" here, and only the bold word of mixed content
+    @Test
+    public void testTagsAreDroppedWithoutAddingText(){
+        assertEquals("", BodyMatcher.htmlBodyText(bytes("<html><body><br/></body></html>")));
+        assertTrue(BodyMatcher.htmlBodyTextEquals(bytes("<html><body><br/><p></p></body></html>"), ""));
+        assertTrue(BodyMatcher.htmlBodyTextEquals(bytes("<html><body>a<br>b</body></html>"), "ab"));
+        assertTrue(BodyMatcher.htmlBodyTextEquals(bytes("<html><body>Hello <b>big</b> world</body></html>"),
+                "Hello big world"));
+    }
+
+    @Test
+    public void testMultibyteTextIsComparedOnItsUtf8Bytes(){
+        byte[] body = bytes("<html><body>\u00fc\u00ef \ud83d\ude00</body></html>");
+
+        assertTrue(BodyMatcher.htmlBodyTextEquals(body, "\u00fc\u00ef \ud83d\ude00"));
+        assertFalse(BodyMatcher.htmlBodyTextEquals(body, "\u00fc\u00ee \ud83d\ude00"));
+        assertFalse(BodyMatcher.htmlBodyTextEquals(body, "\u00fc\u00ef"));
+    }
+
+    private static Response htmlResponse(String body) {
+        return new ResponseBuilder()
+                .setStatusCode(200)
+                .setStatusLine("HTTP/1.1 200")
+                .setContentType("text/html; charset=utf-8")
+                .setBody(body)
+                .build();
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
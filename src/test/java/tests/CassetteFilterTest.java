@@ -0,0 +1,139 @@
+package tests;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import lib.ApiRequest;
+import lib.BaseTestCase;
+import lib.CassetteFilter;
+import lib.DataGenerate;
+import lib.FilterChain;
+import lib.UserServiceStub;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CassetteFilterTest extends BaseTestCase {
+    @TempDir
+    Path cassettes;
+
+    @Test
+    public void testRecordedExchangesReplayWithoutTheService(){
+        Path file = cassettes.resolve("round-trip.cassette");
+        String recordedId;
+        String recordedUser;
+        try (UserServiceStub stub = UserServiceStub.start()) {
+            CassetteFilter recording = new CassetteFilter(CassetteFilter.Mode.RECORD, file);
+            FilterChain chain = new FilterChain(Collections.singletonList(recording), CassetteFilterTest::transport);
+            String url = stub.getBaseUrl() + "/api/user/";
+            String email = DataGenerate.getRandomEmail();
+
+            recordedId = send(chain, "POST", url, registration(email)).asString();
+            assertEquals(200, send(chain, "POST", url + "login", login(email, "123")).statusCode());
+            assertEquals(400, send(chain, "POST", url + "login", login(email, "124")).statusCode());
+            recordedUser = send(chain, "GET", url + 2, null).asString();
+            recording.close();
+        }
+
+        // the stub is gone, anything that is not in the cassette fails instead of reaching the network
+        CassetteFilter replaying = new CassetteFilter(CassetteFilter.Mode.REPLAY, file);
+        FilterChain chain = new FilterChain(Collections.singletonList(replaying), request -> {
+            throw new IllegalStateException("Replay sent " + request.getMethod() + " " + request.getUri());
+        });
+        String url = "http://127.0.0.1:1/api/user/";
+        String email = DataGenerate.getRandomEmail();
+
+        assertEquals(recordedId, send(chain, "POST", url, registration(email)).asString());
+        // same length, different password: each gets its own recording whatever the order
+        assertEquals(400, send(chain, "POST", url + "login", login(email, "124")).statusCode());
+        assertEquals(200, send(chain, "POST", url + "login", login(email, "123")).statusCode());
+        assertEquals(recordedUser, send(chain, "GET", url + 2, null).asString());
+        CompletionException unrecorded = assertThrows(CompletionException.class,
+                () -> send(chain, "POST", url + "login", login(email, "125")));
+        assertInstanceOf(IllegalStateException.class, unrecorded.getCause());
+    }
+
+    private static String registration(String email) {
+        Map<String, String> data = DataGenerate.getRegistrationData();
+        return "{\"email\":\"" + email + "\",\"password\":\"" + data.get("password")
+                + "\",\"username\":\"" + data.get("username") + "\",\"firstName\":\"" + data.get("firstName")
+                + "\",\"lastName\":\"" + data.get("lastName") + "\"}";
+    }
+
+    private static String login(String email, String password) {
+        return "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+    }
+
+    private static Response send(FilterChain chain, String method, String uri, String body) {
+        return chain.proceed(new CassetteRequest(method, uri, body)).join();
+    }
+
+    private static CompletableFuture<Response> transport(ApiRequest request) {
+        Object body = request.getBody();
+        return CompletableFuture.completedFuture(body == null
+                ? RestAssured.given().request(request.getMethod(), request.getUri())
+                : RestAssured.given().contentType(ContentType.JSON).body(body)
+                        .request(request.getMethod(), request.getUri()));
+    }
+
+    private static class CassetteRequest extends ApiRequest {
+        private final String method;
+        private final String uri;
+        private final String body;
+
+        CassetteRequest(String method, String uri, String body) {
+            this.method = method;
+            this.uri = uri;
+            this.body = body;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getUri() {
+            return uri;
+        }
+
+        @Override
+        public Object getBody() {
+            return body;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        @Override
+        public String getCookie(String name) {
+            return null;
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, String> getCookies() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return true;
+        }
+    }
+}
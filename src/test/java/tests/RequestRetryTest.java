@@ -0,0 +1,116 @@
+package tests;
+
+import io.restassured.response.Response;
+import lib.ApiCoreRequests;
+import lib.Assertions;
+import lib.AsyncApiCoreRequests;
+import lib.BaseTestCase;
+import lib.CassetteFilter;
+import lib.FaultProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+public class RequestRetryTest extends BaseTestCase {
+    private static final int ATTEMPTS = Integer.getInteger("api.retries", 2) + 1;
+
+    // every attempt passes the instance's filters again
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final ApiCoreRequests apiCoreRequests = new ApiCoreRequests((requestSpec, responseSpec, context) -> {
+        attempts.incrementAndGet();
+        return context.next(requestSpec, responseSpec);
+    });
+
+    @BeforeEach
+    public void requireLiveProxy(){
+        assumeFalse(CassetteFilter.getInstance().isActive(), "Faults are injected by a live proxy");
+    }
+
+    @Test
+    @FaultProfile("unavailable")
+    public void testGetIsRetriedWhileServerIsUnavailable(){
+        Response response = apiCoreRequests.makeGetRequest("/user/2", "token", "cookie");
+
+        Assertions.assertResponseCodeEquals(response, 503);
+        assertEquals(ATTEMPTS, attempts.get());
+    }
+
+    @Test
+    @FaultProfile("unavailable")
+    public void testPutIsRetriedWhileServerIsUnavailable(){
+        Map<String, String> editData = new HashMap<>();
+        editData.put("firstName", "learnqa");
+
+        Response response = apiCoreRequests.makePutRequestWithTokenAndCookie("/user/2", "token", "cookie", editData);
+
+        Assertions.assertResponseCodeEquals(response, 503);
+        assertEquals(ATTEMPTS, attempts.get());
+    }
+
+    @Test
+    @FaultProfile("unavailable")
+    public void testPostIsNeverRetried(){
+        Map<String, String> authData = new HashMap<>();
+        authData.put("email", "vinkotov@example.com");
+        authData.put("password", "1234");
+
+        Response response = apiCoreRequests.makePostRequest("/user/login", authData);
+
+        Assertions.assertResponseCodeEquals(response, 503);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    @FaultProfile("unavailable-briefly")
+    public void testRetryWaitsAsLongAsRetryAfterAsks(){
+        long startedAt = System.nanoTime();
+        Response response = apiCoreRequests.makeGetRequest("/user/2", "token", "cookie");
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        Assertions.assertResponseCodeEquals(response, 503);
+        assertEquals(ATTEMPTS, attempts.get());
+        assertTrue(elapsed >= (ATTEMPTS - 1) * 1000L, "Retry-After: 1 was not waited for, took " + elapsed + " ms");
+    }
+
+    @Test
+    @FaultProfile("unavailable-for-long")
+    public void testRetryAfterBeyondMaxBackoffIsNotWaitedFor(){
+        long startedAt = System.nanoTime();
+        Response response = apiCoreRequests.makeGetRequest("/user/2", "token", "cookie");
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        Assertions.assertResponseCodeEquals(response, 503);
+        assertEquals(1, attempts.get());
+        assertTrue(elapsed < 60_000, "Retry-After: 60 was waited for");
+    }
+
+    @Test
+    @FaultProfile("unavailable-briefly")
+    public void testAsyncGetIsRetriedAndPostIsNot(){
+        AsyncApiCoreRequests asyncRequests = new AsyncApiCoreRequests();
+        Map<String, String> authData = new HashMap<>();
+        authData.put("email", "vinkotov@example.com");
+        authData.put("password", "1234");
+
+        long startedAt = System.nanoTime();
+        Response post = asyncRequests.makePostRequest("/user/login", authData).join();
+        long postElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        startedAt = System.nanoTime();
+        Response get = asyncRequests.makeGetRequest("/user/2", "token", "cookie").join();
+        long getElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        Assertions.assertResponseCodeEquals(post, 503);
+        Assertions.assertResponseCodeEquals(get, 503);
+        // only a retry waits out the server's Retry-After
+        assertTrue(postElapsed < 1000, "POST was retried, took " + postElapsed + " ms");
+        assertTrue(getElapsed >= (ATTEMPTS - 1) * 1000L, "GET was not retried, took " + getElapsed + " ms");
+    }
+}
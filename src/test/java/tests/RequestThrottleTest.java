@@ -0,0 +1,95 @@
+package tests;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import lib.BaseTestCase;
+import lib.CassetteFilter;
+import lib.FaultProxy;
+import lib.RequestThrottle;
+import lib.UserServiceStub;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+public class RequestThrottleTest extends BaseTestCase {
+    private static final String USER_URL = "http://127.0.0.1:1/api/user/";
+    private static final String HOST = "127.0.0.1:1";
+
+    @Test
+    public void testRequestsArePacedPerEndpoint(){
+        RequestThrottle throttle = new RequestThrottle(20, 1, false, 1, 1, 2);
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire("GET", USER_URL + 2).join();
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        // the first token is there already, the other four come 50 ms apart
+        assertTrue(elapsed >= 190, "Five GETs at 20 per second took " + elapsed + " ms");
+        assertTrue(throttle.acquire("POST", USER_URL + "login").isDone(), "Another endpoint waited for GET's bucket");
+    }
+
+    @Test
+    public void testLimitGrowsWhileServerKeepsUp(){
+        RequestThrottle throttle = new RequestThrottle(0, 0, true, 2, 4, 1000);
+
+        // only a release that finds the limit used up counts as the server keeping up with it
+        for (int round = 0; round < 20; round++) {
+            List<RequestThrottle.Permit> permits = new ArrayList<>();
+            for (int i = throttle.getConcurrencyLimit(HOST); i > 0; i--) {
+                permits.add(throttle.acquire("GET", USER_URL + 2).join());
+            }
+            permits.forEach(permit -> permit.release(response(200)));
+        }
+
+        assertEquals(4, throttle.getConcurrencyLimit(HOST));
+    }
+
+    @Test
+    public void testRequestOverTheLimitWaitsForARelease(){
+        RequestThrottle throttle = new RequestThrottle(0, 0, true, 1, 1, 1000);
+
+        RequestThrottle.Permit first = throttle.acquire("GET", USER_URL + 2).join();
+        CompletableFuture<RequestThrottle.Permit> second = throttle.acquire("GET", USER_URL + 3);
+        assertFalse(second.isDone(), "Second request got past a limit of one");
+
+        first.release(response(200));
+        assertTrue(second.isDone(), "Release did not hand the permit on");
+    }
+
+    @Test
+    public void testLimitHalvesOnServerErrors(){
+        assumeFalse(CassetteFilter.getInstance().isActive(), "Faults are injected by a live proxy");
+        try (UserServiceStub stub = UserServiceStub.start();
+             FaultProxy proxy = FaultProxy.start(stub.getBaseUrl(), "unavailable")) {
+            RequestThrottle throttle = new RequestThrottle(0, 0, true, 8, 8, 1000);
+            String url = proxy.getBaseUrl() + "/api/user/2";
+            String host = URI.create(url).getAuthority();
+
+            RequestThrottle.Permit permit = throttle.acquire("GET", url).join();
+            Response response = RestAssured.get(url);
+            permit.release(response);
+            assertEquals(503, response.statusCode());
+            assertEquals(4, throttle.getConcurrencyLimit(host));
+
+            // a call that got no response at all counts the same
+            throttle.acquire("GET", url).join().release(null);
+            assertEquals(2, throttle.getConcurrencyLimit(host));
+        }
+    }
+
+    private static Response response(int status) {
+        return new ResponseBuilder().setStatusCode(status).setStatusLine("HTTP/1.1 " + status).setBody("").build();
+    }
+}
@@ -0,0 +1,191 @@
+package tests;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.response.Response;
+import lib.ApiCoreRequests;
+import lib.ApiRequest;
+import lib.BaseTestCase;
+import lib.FilterChain;
+import lib.ResponseCache;
+import lib.Session;
+import lib.SharedResources;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ResponseCacheTest extends BaseTestCase {
+    private static final String USER_URL = "http://127.0.0.1:1/api/user/";
+
+    // GETs that reached the network, by URI
+    private final Map<String, Integer> sent = new HashMap<>();
+    private final Map<String, Integer> statuses = new HashMap<>();
+
+    @Test
+    public void testRepeatedGetIsServedFromCache(){
+        FilterChain chain = chain(new ResponseCache(8));
+
+        Response first = send(chain, "GET", USER_URL + 7, null, null);
+        Response second = send(chain, "GET", USER_URL + 7, null, null);
+
+        assertSame(first, second);
+        assertEquals(1, sent.get(USER_URL + 7));
+    }
+
+    @Test
+    public void testOnlySuccessfulGetIsCached(){
+        FilterChain chain = chain(new ResponseCache(8));
+        statuses.put(USER_URL + 7, 404);
+
+        send(chain, "GET", USER_URL + 7, null, null);
+        statuses.put(USER_URL + 7, 200);
+        send(chain, "GET", USER_URL + 7, null, null);
+        send(chain, "GET", USER_URL + 7, null, null);
+
+        assertEquals(2, sent.get(USER_URL + 7));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted(){
+        FilterChain chain = chain(new ResponseCache(2));
+
+        send(chain, "GET", USER_URL + 7, null, null);
+        send(chain, "GET", USER_URL + 8, null, null);
+        send(chain, "GET", USER_URL + 7, null, null);
+        send(chain, "GET", USER_URL + 9, null, null);
+        send(chain, "GET", USER_URL + 7, null, null);
+        send(chain, "GET", USER_URL + 8, null, null);
+
+        assertEquals(1, sent.get(USER_URL + 7));
+        assertEquals(2, sent.get(USER_URL + 8));
+    }
+
+    @Test
+    public void testEditDropsTheEntryOfItsPath(){
+        FilterChain chain = chain(new ResponseCache(8));
+
+        send(chain, "GET", USER_URL + 7, null, null);
+        send(chain, "PUT", USER_URL + 7, null, null);
+        send(chain, "GET", USER_URL + 7, null, null);
+
+        assertEquals(2, sent.get(USER_URL + 7));
+    }
+
+    @Test
+    @ResourceLock(value = SharedResources.SHARED_TEST_USER, mode = ResourceAccessMode.READ)
+    public void testDeleteDropsTheEntryOfTheSessionsUser(){
+        Session session = new ApiCoreRequests().getSession(SharedResources.SHARED_TEST_USER, "1234");
+        String ownUrl = USER_URL + session.getUserId();
+        String otherUrl = USER_URL + (session.getUserId() + 1);
+        FilterChain chain = chain(new ResponseCache(8));
+
+        send(chain, "GET", ownUrl, null, null);
+        send(chain, "GET", otherUrl, null, null);
+        // the API deletes the session's user, whatever id is in the path
+        send(chain, "DELETE", USER_URL + 999, session.getToken(), session.getCookie());
+        send(chain, "GET", ownUrl, null, null);
+        send(chain, "GET", otherUrl, null, null);
+
+        assertEquals(2, sent.get(ownUrl));
+        assertEquals(1, sent.get(otherUrl));
+    }
+
+    @Test
+    public void testUnknownSessionDropsEveryUser(){
+        FilterChain chain = chain(new ResponseCache(8));
+
+        send(chain, "GET", USER_URL + 7, null, null);
+        send(chain, "GET", USER_URL + 8, null, null);
+        send(chain, "DELETE", USER_URL + 999, "token", "not-a-session-of-this-run");
+        send(chain, "GET", USER_URL + 7, null, null);
+        send(chain, "GET", USER_URL + 8, null, null);
+
+        assertEquals(2, sent.get(USER_URL + 7));
+        assertEquals(2, sent.get(USER_URL + 8));
+    }
+
+    // counts what reaches the network instead of sending it
+    private FilterChain chain(ResponseCache cache) {
+        return new FilterChain(Collections.singletonList(cache), request -> {
+            if (request.getMethod().equals("GET")) {
+                sent.merge(request.getUri(), 1, Integer::sum);
+            }
+            int status = statuses.getOrDefault(request.getUri(), 200);
+            return CompletableFuture.completedFuture(new ResponseBuilder()
+                    .setStatusCode(status)
+                    .setStatusLine("HTTP/1.1 " + status)
+                    .setBody("{\"id\":\"" + request.getUri() + "\"}")
+                    .build());
+        });
+    }
+
+    private static Response send(FilterChain chain, String method, String uri, String token, String cookie) {
+        return chain.proceed(new CacheRequest(method, uri, token, cookie)).join();
+    }
+
+    private static class CacheRequest extends ApiRequest {
+        private final String method;
+        private final String uri;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private final Map<String, String> cookies = new LinkedHashMap<>();
+
+        CacheRequest(String method, String uri, String token, String cookie) {
+            this.method = method;
+            this.uri = uri;
+            if (token != null) {
+                headers.put("x-csrf-token", token);
+            }
+            if (cookie != null) {
+                cookies.put("auth_sid", cookie);
+            }
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getUri() {
+            return uri;
+        }
+
+        @Override
+        public Object getBody() {
+            return null;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.get(name);
+        }
+
+        @Override
+        public String getCookie(String name) {
+            return cookies.get(name);
+        }
+
+        @Override
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Map<String, String> getCookies() {
+            return cookies;
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return true;
+        }
+    }
+}
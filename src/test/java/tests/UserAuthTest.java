@@ -1,67 +1,56 @@
 package tests;
 
-import io.restassured.RestAssured;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
+import lib.ApiClient;
 import lib.Assertions;
 import lib.BaseTestCase;
+import lib.Session;
+import lib.SessionPool;
+import lib.SharedResources;
+import lib.TestContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
-import java.util.HashMap;
-import java.util.Map;
-
+@ResourceLock(value = SharedResources.SHARED_TEST_USER, mode = ResourceAccessMode.READ)
 public class UserAuthTest extends BaseTestCase {
 
-    String cookie;
-    String header;
-    int userInOnAuth;
-
     @BeforeEach
-    public void loginUser(){
-        Map<String, String> authData = new HashMap<>();
-        authData.put("email", "vinkotov@example.com");
-        authData.put("password", "1234");
-
-        Response responseGetAuth = RestAssured
-                .given()
-                .body(authData)
-                .post("https://playground.learnqa.ru/api/user/login")
-                .andReturn();
-
-        this.cookie = this.getCookie(responseGetAuth, "auth_sid");
-        this.header = this.getHeader(responseGetAuth, "x-csrf-token");
-        this.userInOnAuth = this.getIntFromJson(responseGetAuth, "user_id");
+    public void loginUser(TestContext context){
+        context.setSession(SessionPool.getInstance().getSession(SharedResources.SHARED_TEST_USER, "1234"));
     }
 
     @Test
-    public void testAuthUser() {
-        Response responseCheckAuth = RestAssured
+    public void testAuthUser(TestContext context) {
+        Session session = context.getSession();
+        Response responseCheckAuth = ApiClient
                 .given()
-                .header("x-csrf-token", this.header)
-                .cookie("auth_sid", this.cookie)
-                .get("https://playground.learnqa.ru/api/user/auth")
+                .header("x-csrf-token", session.getToken())
+                .cookie("auth_sid", session.getCookie())
+                .get("/user/auth")
                 .andReturn();
-        Assertions.asserJsonByName(responseCheckAuth, "user_id", this.userInOnAuth);
+        Assertions.assertJsonByName(responseCheckAuth, "user_id", session.getUserId());
+        Assertions.assertResponseTimeWithinBudget(responseCheckAuth);
     }
 
     @ParameterizedTest
     @ValueSource(strings = {"cookie", "headers"})
-    public void testNegativeAuthUser(String condition){
-        RequestSpecification spec = RestAssured.given();
-        spec.baseUri("https://playground.learnqa.ru/api/user/auth");
+    public void testNegativeAuthUser(String condition, TestContext context){
+        RequestSpecification spec = ApiClient.given();
 
         if (condition.equals("cookie")) {
-            spec.cookie("auth_sid", this.cookie);
+            spec.cookie("auth_sid", context.getSession().getCookie());
         } else if (condition.equals ("headers")) {
-          spec.header("x-csrf-token", this.header);
+          spec.header("x-csrf-token", context.getSession().getToken());
         } else {
             throw new IllegalArgumentException("Condition value known as Hitler: " + condition);
         }
 
-        Response responseForCheck = spec.get().andReturn();
-        Assertions.asserJsonByName(responseForCheck, "user_id", 0);
+        Response responseForCheck = spec.get("/user/auth").andReturn();
+        Assertions.assertJsonByName(responseForCheck, "user_id", 0);
     }
 }
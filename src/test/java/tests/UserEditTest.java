@@ -3,25 +3,29 @@ package tests;
 import io.qameta.allure.Issue;
 import io.qameta.allure.Severity;
 import io.qameta.allure.TmsLink;
-import io.restassured.RestAssured;
 import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
+import lib.ApiClient;
 import lib.ApiCoreRequests;
 import lib.Assertions;
 import lib.BaseTestCase;
 import lib.DataGenerate;
+import lib.PooledUser;
+import lib.UserPool;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static io.qameta.allure.SeverityLevel.CRITICAL;
 
 public class UserEditTest extends BaseTestCase {
 
     private final ApiCoreRequests apiCoreRequests = new ApiCoreRequests();
+    private final UserPool userPool = UserPool.getInstance();
 
     @Test
     @DisplayName("CASE 1. Edit user that have been just created")
@@ -33,10 +37,10 @@ public class UserEditTest extends BaseTestCase {
         //GENERATE USER
         Map<String, String> userData = DataGenerate.getRegistrationData();
 
-        JsonPath responseCreateAuth = RestAssured
+        JsonPath responseCreateAuth = ApiClient
                 .given()
                 .body(userData)
-                .post("https://playground.learnqa.ru/api/user")
+                .post("/user")
                 .jsonPath();
 
         String userId = responseCreateAuth.getString("id");
@@ -46,10 +50,10 @@ public class UserEditTest extends BaseTestCase {
         authData.put("email", userData.get("email"));
         authData.put("password", userData.get("password"));
 
-        Response responseGetAuth = RestAssured
+        Response responseGetAuth = ApiClient
                 .given()
                 .body(authData)
-                .post("https://playground.learnqa.ru/api/user/login")
+                .post("/user/login")
                 .andReturn();
 
         //EDIT
@@ -57,20 +61,20 @@ public class UserEditTest extends BaseTestCase {
         Map<String, String> editData = new HashMap<>();
         editData.put("firstName", newName);
 
-        Response responseEditUser = RestAssured
+        Response responseEditUser = ApiClient
                 .given()
                 .header("x-csrf-token", this.getHeader(responseGetAuth, "x-csrf-token"))
                 .cookie("auth_sid", this.getCookie(responseGetAuth, "auth_sid"))
                 .body(editData)
-                .put("https://playground.learnqa.ru/api/user/"+ userId)
+                .put("/user/"+ userId)
                 .andReturn();
 
         //GET
-        Response responseUserData = RestAssured
+        Response responseUserData = ApiClient
                 .given()
                 .header("x-csrf-token", this.getHeader(responseGetAuth, "x-csrf-token"))
                 .cookie("auth_sid", this.getCookie(responseGetAuth, "auth_sid"))
-                .get("https://playground.learnqa.ru/api/user/"+ userId)
+                .get("/user/"+ userId)
                 .andReturn();
 
         Assertions.assertJsonByName(responseUserData, "firstName", newName);
@@ -83,22 +87,19 @@ public class UserEditTest extends BaseTestCase {
     @Tag("Negative")
     @TmsLink("TMS-456")
     public void testEditNotAuthTest() {
-        //GENERATE USER
-        Map<String, String> userData = DataGenerate.getRegistrationData();
-
-        Response responseCreateAuth = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user", userData);
-
-        int userId = this.getIntFromJson(responseCreateAuth, "id");
+        //LEASE USER
+        PooledUser user = userPool.lease();
 
         // EDIT DATA
         String newName = "Changed Name";
         Map<String, String> editData = new HashMap<>();
         editData.put("firstName", newName);
 
-        Response responseEditData = apiCoreRequests.makePutRequest("https://playground.learnqa.ru/api/user/"+ userId, editData);
+        Response responseEditData = apiCoreRequests.makePutRequest("/user/"+ user.getId(), editData);
 
         Assertions.assertResponseCodeEquals(responseEditData, 400);
         Assertions.assertResponseTextEquals(responseEditData, "Auth token not supplied");
+        userPool.release(user);
     }
 
     @Test
@@ -107,39 +108,30 @@ public class UserEditTest extends BaseTestCase {
     @Tag("Negative")
     @TmsLink("TMS-456")
     public void testEditAnotherUserAuthTest() {
-        //GENERATE User1 & LOGIN
-        Map<String, String> userData = DataGenerate.getRegistrationData();
-        Response responseCreateAuth = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user", userData);
-        int newUserId = this.getIntFromJson(responseCreateAuth, "id");
-
-        Map<String, String> authData = new HashMap<>();
-        authData.put("email", userData.get("email"));
-        authData.put("password", userData.get("password"));
-
-        Response responseGetAuth = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user/login", authData);
-
-        //GENERATE User2
-        Map<String, String> userData2 = DataGenerate.getRegistrationData();
-        Response responseCreateAuth2 = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user", userData2);
-        int newUserId2 = this.getIntFromJson(responseCreateAuth2, "id");
+        //LEASE User1 & User2
+        CompletableFuture<PooledUser> lease1 = userPool.leaseAsync();
+        CompletableFuture<PooledUser> lease2 = userPool.leaseAsync();
+        PooledUser user1 = lease1.join();
+        PooledUser user2 = lease2.join();
 
         // EDIT DATA: Auth User1, id User2 (!!! No error message here !!!)
         String newName = "Changed Name";
         Map<String, String> editData = new HashMap<>();
         editData.put("firstName", newName);
 
-        Response responseEditData = apiCoreRequests.makePutRequestWithTokenAndCookie("https://playground.learnqa.ru/api/user/"+newUserId2,
-                this.getHeader(responseGetAuth, "x-csrf-token"),
-                this.getCookie(responseGetAuth, "auth_sid"),
+        Response responseEditData = apiCoreRequests.makePutRequestWithSession("/user/"+user2.getId(),
+                user1.getSession(),
                 editData);
         Assertions.assertResponseCodeEquals(responseEditData, 200);
 
         // CHECK DATA: Data was changed for Auth User1
-        Response responseUserData = apiCoreRequests.makeGetRequest("https://playground.learnqa.ru/api/user/"+newUserId,
-                        this.getHeader(responseGetAuth, "x-csrf-token"),
-                        this.getCookie(responseGetAuth, "auth_sid"));
-        Assertions.assertJsonByName(responseUserData, "id", newUserId);
+        Response responseUserData = apiCoreRequests.makeGetRequest("/user/"+user1.getId(),
+                        user1.getSession());
+        Assertions.assertJsonByName(responseUserData, "id", user1.getId());
         Assertions.assertJsonByName(responseUserData, "firstName", newName);
+
+        userPool.destroy(user1);
+        userPool.destroy(user2);
     }
 
     @Test
@@ -148,29 +140,21 @@ public class UserEditTest extends BaseTestCase {
     @Tag("Negative")
     @TmsLink("TMS-456")
     public void testEditWrongEmailTest() {
-        // GENERATE USER & LOGIN
-        Map<String, String> userData = DataGenerate.getRegistrationData();
-        Response responseCreateAuth = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user", userData);
-        int newUserId = this.getIntFromJson(responseCreateAuth, "id");
-
-        Map<String, String> authData = new HashMap<>();
-        authData.put("email", userData.get("email"));
-        authData.put("password", userData.get("password"));
-
-        Response responseGetAuth = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user/login", authData);
+        // LEASE USER
+        PooledUser user = userPool.lease();
 
         // EDIT DATA
         String newName = "wrongemailexample.com";
         Map<String, String> editData = new HashMap<>();
         editData.put("email", newName);
 
-        Response responseEditData = apiCoreRequests.makePutRequestWithTokenAndCookie("https://playground.learnqa.ru/api/user/"+newUserId,
-                this.getHeader(responseGetAuth, "x-csrf-token"),
-                this.getCookie(responseGetAuth, "auth_sid"),
+        Response responseEditData = apiCoreRequests.makePutRequestWithSession("/user/"+user.getId(),
+                user.getSession(),
                 editData);
 
         Assertions.assertResponseCodeEquals(responseEditData, 400);
         Assertions.assertResponseTextEquals(responseEditData, "Invalid email format");
+        userPool.release(user);
     }
 
     @Test
@@ -179,28 +163,19 @@ public class UserEditTest extends BaseTestCase {
     @Tag("Negative")
     @TmsLink("TMS-456")
     public void testEditShortFirstNameTest() {
-        // GENERATE USER & LOGIN
-        Map<String, String> userData = DataGenerate.getRegistrationData();
-        Response responseCreateAuth = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user", userData);
-        int newUserId = this.getIntFromJson(responseCreateAuth, "id");
-
-        Map<String, String> authData = new HashMap<>();
-        authData.put("email", userData.get("email"));
-        authData.put("password", userData.get("password"));
-
-        Response responseGetAuth = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user/login", authData);
+        // LEASE USER
+        PooledUser user = userPool.lease();
 
         // EDIT DATA
         Map<String, String> editData = new HashMap<>();
         editData.put("firstName", "1");
 
-        Response responseEditData = apiCoreRequests.makePutRequestWithTokenAndCookie("https://playground.learnqa.ru/api/user/"+newUserId,
-                this.getHeader(responseGetAuth, "x-csrf-token"),
-                this.getCookie(responseGetAuth, "auth_sid"),
+        Response responseEditData = apiCoreRequests.makePutRequestWithSession("/user/"+user.getId(),
+                user.getSession(),
                 editData);
 
-        responseEditData.prettyPrint();
         Assertions.assertResponseCodeEquals(responseEditData, 400);
         Assertions.assertJsonByName(responseEditData, "error", "Too short value for field firstName");
+        userPool.release(user);
     }
 }
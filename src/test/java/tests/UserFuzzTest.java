@@ -0,0 +1,39 @@
+package tests;
+
+import io.qameta.allure.Allure;
+import lib.CassetteFilter;
+import lib.FuzzReport;
+import lib.PayloadFuzzer;
+import lib.UserServiceStub;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+public class UserFuzzTest {
+
+    @Test
+    @DisplayName("Fuzz registration and edit payloads against the local stub")
+    @Tag("Fuzz")
+    public void testUserPayloadFuzzing() {
+        assumeFalse(CassetteFilter.getInstance().isActive(), "Fuzzing needs a live server, not a cassette");
+        try (UserServiceStub stub = UserServiceStub.start()) {
+            FuzzReport report = new PayloadFuzzer(stub.getBaseUrl())
+                    .concurrency(16)
+                    .duration(Duration.ofSeconds(2))
+                    .run();
+            Allure.addAttachment("Fuzz report", "text/plain", report.toString(), ".txt");
+
+            assertTrue(report.getExecutions() > 0, "No payloads were sent");
+            assertTrue(report.getServerErrors().isEmpty(), "Payloads made the server fail or drop the connection:\n"
+                    + report);
+            assertTrue(report.getFindings().stream().anyMatch(finding -> finding.getStatus() == 400
+                            && finding.getSignature().equals("Invalid email format")),
+                    "Invalid emails were not rejected");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package tests;
+
+import io.qameta.allure.Allure;
+import lib.CassetteFilter;
+import lib.LoadCoordinator;
+import lib.LoadReport;
+import lib.LoadRunner;
+import lib.ScenarioMix;
+import lib.SoakReport;
+import lib.SoakRunner;
+import lib.UserLifecycleScenario;
+import lib.UserServiceStub;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+public class UserLoadTest {
+
+    @Test
+    @DisplayName("Register, login, edit, get and delete users under load against the local stub")
+    @Tag("Load")
+    public void testUserLifecycleUnderLoad() {
+        assumeFalse(CassetteFilter.getInstance().isActive(), "Load runs need a live server, not a cassette");
+        try (UserServiceStub stub = UserServiceStub.start()) {
+            LoadReport report = new LoadRunner(stub.getBaseUrl(), new UserLifecycleScenario())
+                    .concurrency(8)
+                    .duration(Duration.ofSeconds(2))
+                    .run();
+            Allure.addAttachment("Load report", "text/plain", report.toString(), ".txt");
+
+            assertTrue(report.getIterations() > 0, "No scenario iterations were run");
+            assertEquals(0, report.getFailures(), "Some scenario iterations failed");
+            assertTrue(report.getEndpoints().containsKey("DELETE /api/user/{id}"), "DELETE requests were not recorded");
+        }
+    }
+
+    @Test
+    @DisplayName("Run the user lifecycle from two worker JVMs and merge their results")
+    @Tag("Load")
+    public void testUserLifecycleUnderDistributedLoad() {
+        assumeFalse(CassetteFilter.getInstance().isActive(), "Load runs need a live server, not a cassette");
+        try (UserServiceStub stub = UserServiceStub.start()) {
+            LoadReport report = new LoadCoordinator(stub.getBaseUrl(), UserLifecycleScenario.class)
+                    .workers(2)
+                    .concurrency(8)
+                    .duration(Duration.ofSeconds(2))
+                    .run();
+            Allure.addAttachment("Distributed load report", "text/plain", report.toString(), ".txt");
+
+            assertTrue(report.getIterations() > 0, "No scenario iterations were run");
+            assertEquals(0, report.getFailures(), "Some scenario iterations failed");
+            assertEquals(report.getIterations(),
+                    report.getEndpoints().get("DELETE /api/user/{id}").getLatencyMicros().getCount(),
+                    "Worker histograms were not merged");
+        }
+    }
+
+    @Test
+    @DisplayName("Replay the register, edit and delete flows in short soak windows")
+    @Tag("Load")
+    public void testUserFlowsSoak(@TempDir Path soakDir) {
+        assumeFalse(CassetteFilter.getInstance().isActive(), "Load runs need a live server, not a cassette");
+        try (UserServiceStub stub = UserServiceStub.start()) {
+            SoakReport report = new SoakRunner(stub.getBaseUrl(), ScenarioMix.userTests())
+                    .outputDir(soakDir)
+                    .concurrency(2)
+                    .duration(Duration.ofSeconds(6))
+                    .window(Duration.ofSeconds(1))
+                    .warmupWindows(0)
+                    .run();
+            Allure.addAttachment("Soak report", "text/plain", report.toString(), ".txt");
+
+            assertEquals(6, report.getWindows().size(), "Not every soak window was run");
+            for (SoakReport.Window window : report.getWindows()) {
+                assertEquals(0, window.getLoad().getFailures(), "Some scenario iterations failed");
+            }
+            assertTrue(report.getDrifts().stream().anyMatch(drift -> drift.getMetric().equals("client threads")),
+                    "Client threads were not checked for drift");
+        }
+    }
+
+    @Test
+    @DisplayName("Flag a steadily rising soak metric as drift and leave a flat one alone")
+    @Tag("Load")
+    public void testSoakDriftDetection() {
+        SoakRunner runner = new SoakRunner("http://localhost", ScenarioMix.userTests());
+        List<double[]> rising = new ArrayList<>();
+        List<double[]> flat = new ArrayList<>();
+        for (int window = 0; window < 12; window++) {
+            double hours = window / 60.0;
+            rising.add(new double[] {hours, 100 + 10 * window});
+            flat.add(new double[] {hours, 100 + window % 3});
+        }
+
+        SoakReport.Drift risingDrift = runner.trend("rising p95 (ms)", rising);
+        SoakReport.Drift flatDrift = runner.trend("flat p95 (ms)", flat);
+
+        assertTrue(risingDrift.isSignificant(), "A steady rise was not flagged: z=" + risingDrift.getZ());
+        assertFalse(flatDrift.isSignificant(), "A flat series was flagged: z=" + flatDrift.getZ());
+    }
+}
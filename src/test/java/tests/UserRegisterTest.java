@@ -1,18 +1,24 @@
 package tests;
 
-import io.restassured.RestAssured;
 import io.restassured.response.Response;
+import lib.ApiClient;
 import lib.Assertions;
 import lib.BaseTestCase;
 import lib.DataGenerate;
+import lib.LatencyBudgets;
+import lib.LatencySeries;
+import lib.NameBoundaryArgumentsProvider;
+import lib.SharedResources;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
 
 import java.util.HashMap;
 import java.util.Map;
 
 import lib.ApiCoreRequests;
 import org.junit.jupiter.params.ParameterizedTest;
-import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ArgumentsSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 
@@ -21,17 +27,18 @@ public class UserRegisterTest  extends BaseTestCase {
     private final ApiCoreRequests apiCoreRequests = new ApiCoreRequests();
 
     @Test
+    @ResourceLock(value = SharedResources.SHARED_TEST_USER, mode = ResourceAccessMode.READ)
     public void testCreateUserWithExistingEmail(){
-        String email = "vinkotov@example.com";
+        String email = SharedResources.SHARED_TEST_USER;
 
         Map<String, String> userData = new HashMap<>();
         userData.put("email", email);
         userData = DataGenerate.getRegistrationData(userData);
 
-        Response responseCreateAuth = RestAssured
+        Response responseCreateAuth = ApiClient
                 .given()
                 .body(userData)
-                .post("https://playground.learnqa.ru/api/user/")
+                .post("/user/")
                 .andReturn();
 
         Assertions.assertResponseCodeEquals(responseCreateAuth, 400);
@@ -43,10 +50,10 @@ public class UserRegisterTest  extends BaseTestCase {
 
         Map<String, String> userData = DataGenerate.getRegistrationData();
 
-        Response responseCreateAuth = RestAssured
+        Response responseCreateAuth = ApiClient
                 .given()
                 .body(userData)
-                .post("https://playground.learnqa.ru/api/user/")
+                .post("/user/")
                 .andReturn();
 
         Assertions.assertResponseCodeEquals(responseCreateAuth, 200);
@@ -62,30 +69,27 @@ public class UserRegisterTest  extends BaseTestCase {
         userData = DataGenerate.getRegistrationData(userData);
 
         Response responseCreateAuth = apiCoreRequests.
-                makePostRequest("https://playground.learnqa.ru/api/user/", userData);
+                makePostRequest("/user/", userData);
 
         Assertions.assertResponseCodeEquals(responseCreateAuth, 400);
         Assertions.assertResponseTextEquals(responseCreateAuth, "Invalid email format");
     }
 
     @ParameterizedTest
-    @CsvSource(value = {
-            "1,   10,  The value of 'firstName' field is too short",
-            "10,  1,   The value of 'lastName' field is too short",
-            "251, 10,  The value of 'firstName' field is too long",
-            "10,  251, The value of 'lastName' field is too long"})
-    public void testCreateUserWithDifferentName(int firstNameSize, int lastNameSize, String expectedMessage){
-        Map<String, String> userData = new HashMap<>();
-
-        userData.put("firstName", DataGenerate.getRandomStringWithGivenSize(firstNameSize));
-        userData.put("lastName", DataGenerate.getRandomStringWithGivenSize(lastNameSize));
-        userData = DataGenerate.getRegistrationData(userData);
-
+    @ArgumentsSource(NameBoundaryArgumentsProvider.class)
+    @LatencySeries(percentile = 95)
+    public void testCreateUserWithDifferentName(Map<String, String> userData, int expectedStatusCode,
+                                                String expectedMessage){
         Response responseCreateAuth = apiCoreRequests.
-                makePostRequest("https://playground.learnqa.ru/api/user/", userData);
-
-        Assertions.assertResponseCodeEquals(responseCreateAuth, 400);
-        Assertions.assertResponseTextEquals(responseCreateAuth, expectedMessage);
+                makePostRequest("/user/", userData);
+        LatencyBudgets.getInstance().record(responseCreateAuth);
+
+        Assertions.assertResponseCodeEquals(responseCreateAuth, expectedStatusCode);
+        if (expectedMessage == null) {
+            Assertions.assertJsonHasField(responseCreateAuth, "id");
+        } else {
+            Assertions.assertResponseTextEquals(responseCreateAuth, expectedMessage);
+        }
     }
 
     @ParameterizedTest
@@ -95,7 +99,7 @@ public class UserRegisterTest  extends BaseTestCase {
                 DataGenerate.getRegistrationDataWithoutOneField(notExpectedFiledName);
 
         Response responseCreateAuth = apiCoreRequests.
-                makePostRequest("https://playground.learnqa.ru/api/user/", userData);
+                makePostRequest("/user/", userData);
 
         Assertions.assertResponseCodeEquals(responseCreateAuth, 400);
         Assertions.assertResponseTextEquals(responseCreateAuth,
@@ -1,24 +1,32 @@
 package tests;
 
-import io.restassured.RestAssured;
 import io.restassured.response.Response;
+import lib.ApiClient;
 import lib.Assertions;
 import lib.BaseTestCase;
+import lib.CassetteFilter;
+import lib.FaultProfile;
+import lib.SharedResources;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
 
 import lib.ApiCoreRequests;
+import lib.Session;
 
-import java.util.HashMap;
-import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
+@ResourceLock(value = SharedResources.SHARED_TEST_USER, mode = ResourceAccessMode.READ)
 public class userGetTest extends BaseTestCase {
 
     private final ApiCoreRequests apiCoreRequests = new ApiCoreRequests();
 
     @Test
     public void testGetUserDataNotAuth(){
-        Response responseUserData = RestAssured
-                .get("https://playground.learnqa.ru/api/user/2")
+        Response responseUserData = ApiClient
+                .given()
+                .get("/user/2")
                 .andReturn();
 
         Assertions.assertJsonHasField(responseUserData, "username");
@@ -29,17 +37,9 @@ public class userGetTest extends BaseTestCase {
 
     @Test
     public void testGetUserDetailsAuthUser(){
-        Map<String, String> authData = new HashMap();
+        Session session = apiCoreRequests.getSession(SharedResources.SHARED_TEST_USER, "1234");
 
-        authData.put("email", "vinkotov@example.com");
-        authData.put("password","1234");
-
-        Response responseGetAuth = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user/login", authData);
-
-        String cookie = this.getCookie(responseGetAuth, "auth_sid");
-        String header = this.getHeader(responseGetAuth, "x-csrf-token");
-
-        Response responseUserData = apiCoreRequests.makeGetRequest("https://playground.learnqa.ru/api/user/2", header, cookie);
+        Response responseUserData = apiCoreRequests.makeGetRequest("/user/2", session);
 
         String[] expectedFields = {"username", "firstName", "lastName", "email"};
         Assertions.assertJsonHasFields(responseUserData, expectedFields);
@@ -47,20 +47,37 @@ public class userGetTest extends BaseTestCase {
 
     @Test
     public void testGetAnotherUserDetailsAuthUser(){
-        Map<String, String> authData = new HashMap();
-
-        authData.put("email", "vinkotov@example.com");
-        authData.put("password","1234");
+        Session session = apiCoreRequests.getSession(SharedResources.SHARED_TEST_USER, "1234");
 
-        Response responseGetAuth = apiCoreRequests.makePostRequest("https://playground.learnqa.ru/api/user/login", authData);
+        Response responseUserData = apiCoreRequests.makeGetRequest("/user/1", session);
 
-        String cookie = this.getCookie(responseGetAuth, "auth_sid");
-        String header = this.getHeader(responseGetAuth, "x-csrf-token");
+        Assertions.assertJsonHasField(responseUserData, "username");
+        Assertions.assertJsonHasNotFields(responseUserData, new String[]{"firstName", "lastName", "email"});
+    }
 
-        Response responseUserData = apiCoreRequests.makeGetRequest("https://playground.learnqa.ru/api/user/1", header, cookie);
+    @Test
+    @FaultProfile("slow-user")
+    public void testGetUserDataFromSlowServer(){
+        assumeFalse(CassetteFilter.getInstance().isActive(), "Faults are injected by a live proxy");
+        Response responseUserData = ApiClient
+                .given()
+                .get("/user/2")
+                .andReturn();
 
         Assertions.assertJsonHasField(responseUserData, "username");
-        Assertions.assertJsonHasNotFields(responseUserData, new String[]{"firstName", "lastName", "email"});
+        assertTrue(responseUserData.time() >= 300, "Injected delay was not applied: " + responseUserData.time() + " ms");
+    }
+
+    @Test
+    @FaultProfile("unavailable-user")
+    public void testGetUserDetailsWhenServerUnavailable(){
+        assumeFalse(CassetteFilter.getInstance().isActive(), "Faults are injected by a live proxy");
+        Session session = apiCoreRequests.getSession(SharedResources.SHARED_TEST_USER, "1234");
+
+        // retries give up and hand the last 503 back instead of hiding it
+        Response responseUserData = apiCoreRequests.makeGetRequest("/user/2", session);
+
+        Assertions.assertResponseCodeEquals(responseUserData, 503);
     }
 
 }